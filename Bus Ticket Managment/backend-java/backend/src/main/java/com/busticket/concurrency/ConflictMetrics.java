@@ -0,0 +1,51 @@
+package com.busticket.concurrency;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class ConflictMetrics {
+
+    private final Map<String, OperationCounters> operations = new ConcurrentHashMap<>();
+
+    public void recordAttempt(String operation) {
+        counters(operation).attempts.increment();
+    }
+
+    public void recordConflict(String operation) {
+        counters(operation).conflicts.increment();
+    }
+
+    public void recordExhausted(String operation) {
+        counters(operation).exhausted.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        operations.forEach((operation, counters) -> {
+            long attempts = counters.attempts.sum();
+            long conflicts = counters.conflicts.sum();
+            Map<String, Object> op = new LinkedHashMap<>();
+            op.put("attempts", attempts);
+            op.put("conflicts", conflicts);
+            op.put("exhausted", counters.exhausted.sum());
+            op.put("conflictRate", attempts > 0 ? (double) conflicts / attempts : 0.0);
+            stats.put(operation, op);
+        });
+        return stats;
+    }
+
+    private OperationCounters counters(String operation) {
+        return operations.computeIfAbsent(operation, k -> new OperationCounters());
+    }
+
+    private static class OperationCounters {
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+    }
+}
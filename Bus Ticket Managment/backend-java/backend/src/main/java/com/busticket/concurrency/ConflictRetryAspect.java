@@ -0,0 +1,77 @@
+package com.busticket.concurrency;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries {@link RetryOnConflict} methods with bounded exponential backoff and jitter.
+ * Runs outside the transaction interceptor so every attempt gets its own transaction.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConflictRetryAspect {
+
+    private static final Logger log = LoggerFactory.getLogger(ConflictRetryAspect.class);
+
+    @Autowired
+    private ConflictMetrics conflictMetrics;
+
+    @Value("${app.booking.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${app.booking.retry.initial-backoff-ms:10}")
+    private long initialBackoffMs;
+
+    @Value("${app.booking.retry.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    @Around("@annotation(com.busticket.concurrency.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Inside an outer transaction a retry would reuse the failed persistence context
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String operation = method.getAnnotation(RetryOnConflict.class).value();
+        long backoff = initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            conflictMetrics.recordAttempt(operation);
+            try {
+                return joinPoint.proceed();
+            } catch (ConcurrencyFailureException ex) {
+                conflictMetrics.recordConflict(operation);
+                if (attempt >= maxAttempts) {
+                    conflictMetrics.recordExhausted(operation);
+                    throw ex;
+                }
+                log.debug("Conflict on {} (attempt {}), retrying: {}", operation, attempt, ex.getMessage());
+                sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                backoff = Math.min(backoff * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying booking operation", e);
+        }
+    }
+}
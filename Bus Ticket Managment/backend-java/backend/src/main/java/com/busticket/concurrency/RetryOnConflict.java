@@ -0,0 +1,20 @@
+package com.busticket.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the annotated service method in a fresh transaction when it fails with an
+ * optimistic or pessimistic locking conflict. See {@link ConflictRetryAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /**
+     * Operation name used for the conflict metrics, e.g. "hold" or "confirm".
+     */
+    String value();
+}
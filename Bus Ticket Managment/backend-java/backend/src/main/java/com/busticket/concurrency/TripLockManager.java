@@ -0,0 +1,135 @@
+package com.busticket.concurrency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes booking mutations per trip with a fixed array of lock stripes, so work on the same
+ * trip queues in-process instead of convoying on database row locks while other trips run in parallel.
+ * Locks are held until the surrounding transaction completes.
+ */
+@Component
+public class TripLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final AtomicLongArray acquisitions;
+    private final AtomicLongArray contended;
+    private final AtomicLongArray waitNanos;
+    private final long timeoutMs;
+
+    public TripLockManager(@Value("${app.booking.lock-stripes:64}") int stripeCount,
+                           @Value("${app.booking.lock-timeout-ms:5000}") long timeoutMs) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.acquisitions = new AtomicLongArray(size);
+        this.contended = new AtomicLongArray(size);
+        this.waitNanos = new AtomicLongArray(size);
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Locks the stripes of the given trips in ascending stripe order, so callers locking several
+     * trips can never deadlock each other, and releases them when the current transaction completes.
+     */
+    public void lockForTransaction(Collection<Long> tripIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Trip locks must be taken inside a transaction");
+        }
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        for (Long tripId : tripIds) {
+            stripeIndexes.add(stripeFor(tripId));
+        }
+        List<ReentrantLock> acquired = new ArrayList<>(stripeIndexes.size());
+        try {
+            for (int index : stripeIndexes) {
+                acquire(index);
+                acquired.add(stripes[index]);
+            }
+        } catch (RuntimeException ex) {
+            acquired.forEach(ReentrantLock::unlock);
+            throw ex;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (int i = acquired.size() - 1; i >= 0; i--) {
+                    acquired.get(i).unlock();
+                }
+            }
+        });
+    }
+
+    public void lockForTransaction(Long tripId) {
+        lockForTransaction(List.of(tripId));
+    }
+
+    public Map<String, Object> snapshot() {
+        long totalAcquisitions = 0;
+        long totalContended = 0;
+        long totalWaitNanos = 0;
+        List<Map<String, Object>> hotStripes = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            totalAcquisitions += acquisitions.get(i);
+            totalContended += contended.get(i);
+            totalWaitNanos += waitNanos.get(i);
+            if (contended.get(i) > 0) {
+                Map<String, Object> stripe = new LinkedHashMap<>();
+                stripe.put("stripe", i);
+                stripe.put("acquisitions", acquisitions.get(i));
+                stripe.put("contended", contended.get(i));
+                stripe.put("waitMs", TimeUnit.NANOSECONDS.toMillis(waitNanos.get(i)));
+                stripe.put("queueLength", stripes[i].getQueueLength());
+                hotStripes.add(stripe);
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stripes", stripes.length);
+        stats.put("acquisitions", totalAcquisitions);
+        stats.put("contended", totalContended);
+        stats.put("waitMs", TimeUnit.NANOSECONDS.toMillis(totalWaitNanos));
+        stats.put("contendedStripes", hotStripes);
+        return stats;
+    }
+
+    int stripeFor(Long tripId) {
+        int h = tripId.hashCode();
+        h ^= (h >>> 16);
+        return h & (stripes.length - 1);
+    }
+
+    private void acquire(int index) {
+        ReentrantLock lock = stripes[index];
+        acquisitions.incrementAndGet(index);
+        if (lock.tryLock()) {
+            return;
+        }
+        contended.incrementAndGet(index);
+        long start = System.nanoTime();
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new CannotAcquireLockException("Timed out waiting for trip lock stripe " + index);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrupted while waiting for trip lock", e);
+        } finally {
+            waitNanos.addAndGet(index, System.nanoTime() - start);
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.busticket.controller;
 
+import com.busticket.dto.BookingLegRequest;
 import com.busticket.dto.BookingRequest;
+import com.busticket.dto.JourneyBookingRequest;
+import com.busticket.dto.WaitlistRequest;
 import com.busticket.model.Booking;
+import com.busticket.model.WaitlistEntry;
 import com.busticket.service.BookingService;
+import com.busticket.service.WaitingRoomService;
+import com.busticket.service.WaitlistService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -18,6 +24,7 @@ import org.springframework.security.core.Authentication;
 import com.busticket.service.UserService;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/bookings")
@@ -28,6 +35,12 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
     @Autowired
     private UserService userService;
 
@@ -41,11 +54,30 @@ public class BookingController {
         @ApiResponse(responseCode = "400", description = "Validation or seat availability error",
             content = @Content(mediaType = "application/json"))
     })
-    public ResponseEntity<Booking> holdSeats(@Valid @RequestBody BookingRequest request) {
+    public ResponseEntity<Booking> holdSeats(@Valid @RequestBody BookingRequest request,
+                                             @RequestHeader(value = "X-Queue-Token", required = false) String admissionToken,
+                                             Authentication authentication) {
+        waitingRoomService.checkAdmission(request.getTripId(), admissionToken,
+                authentication != null ? authentication.getName() : null);
         Booking booking = bookingService.holdSeats(request);
         return ResponseEntity.ok(booking);
     }
 
+    @PostMapping("/journey")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @Operation(summary = "Hold seats for a journey", description = "Hold seats on every leg of a connecting journey as one booking, or on none of them; each leg behind a waiting room carries its own queueToken")
+    public ResponseEntity<Booking> holdJourney(@Valid @RequestBody JourneyBookingRequest request,
+                                               @RequestHeader(value = "X-Queue-Token", required = false) String admissionToken,
+                                               Authentication authentication) {
+        // Admission tokens are bound to one trip, so every gated leg needs its own
+        for (BookingLegRequest leg : request.getLegs()) {
+            waitingRoomService.checkAdmission(leg.getTripId(),
+                    leg.getQueueToken() != null ? leg.getQueueToken() : admissionToken,
+                    authentication != null ? authentication.getName() : null);
+        }
+        return ResponseEntity.ok(bookingService.holdJourney(request));
+    }
+
     @PostMapping("/{bookingId}/confirm")
     @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
     @Operation(summary = "Confirm booking", description = "Confirm a held booking after payment")
@@ -63,6 +95,42 @@ public class BookingController {
         return ResponseEntity.ok(booking);
     }
 
+    @PostMapping("/queue/{tripId}")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @Operation(summary = "Join waiting room", description = "Take a place in the queue for a flash-sale trip; the admission token goes in the X-Queue-Token header when holding seats")
+    public ResponseEntity<Map<String, Object>> joinQueue(@PathVariable Long tripId, Authentication authentication) {
+        return ResponseEntity.ok(waitingRoomService.join(tripId, authentication.getName()));
+    }
+
+    @GetMapping("/queue/{tripId}")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @Operation(summary = "Get queue position", description = "Get the position and estimated wait for a queue token")
+    public ResponseEntity<Map<String, Object>> getQueueStatus(@PathVariable Long tripId, @RequestParam String token,
+                                                              Authentication authentication) {
+        return ResponseEntity.ok(waitingRoomService.getStatus(tripId, token, authentication.getName()));
+    }
+
+    @PostMapping("/waitlist")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @Operation(summary = "Join waitlist", description = "Wait for seats on a sold out trip; they are held automatically when freed")
+    public ResponseEntity<WaitlistEntry> joinWaitlist(@Valid @RequestBody WaitlistRequest request) {
+        return ResponseEntity.ok(waitlistService.join(request));
+    }
+
+    @PostMapping("/waitlist/{entryId}/cancel")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @Operation(summary = "Leave waitlist", description = "Remove a waiting entry from the waitlist")
+    public ResponseEntity<WaitlistEntry> leaveWaitlist(@PathVariable Long entryId) {
+        return ResponseEntity.ok(waitlistService.leave(entryId));
+    }
+
+    @GetMapping("/waitlist/user/{userId}")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @Operation(summary = "Get user waitlist entries", description = "Get the waitlist entries of a specific user")
+    public ResponseEntity<List<WaitlistEntry>> getUserWaitlist(@PathVariable Long userId) {
+        return ResponseEntity.ok(waitlistService.getUserEntries(userId));
+    }
+
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
     @Operation(summary = "Get user bookings", description = "Get all bookings for a specific user")
@@ -81,6 +81,13 @@ public class ReportController {
         return ResponseEntity.ok(dashboard);
     }
 
+    @GetMapping("/booking-engine")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Booking engine stats", description = "Get retry and contention metrics of the booking path")
+    public ResponseEntity<Map<String, Object>> getBookingEngineStats() {
+        return ResponseEntity.ok(reportService.getBookingEngineStats());
+    }
+
     @GetMapping(value = "/download", produces = "application/pdf")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Download report", description = "Generate and download PDF report for the date range")
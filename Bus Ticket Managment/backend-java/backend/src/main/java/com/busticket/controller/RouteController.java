@@ -1,6 +1,7 @@
 package com.busticket.controller;
 
 import com.busticket.model.Route;
+import com.busticket.service.CityAutocomplete;
 import com.busticket.service.RouteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,6 +23,9 @@ public class RouteController {
     @Autowired
     private RouteService routeService;
 
+    @Autowired
+    private CityAutocomplete cityAutocomplete;
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Create route", description = "Create a new route (Admin only)")
@@ -74,6 +78,14 @@ public class RouteController {
         return ResponseEntity.ok(routes);
     }
 
+    @GetMapping("/cities")
+    @Operation(summary = "Suggest cities", description = "Source and destination suggestions by prefix, most popular first")
+    public ResponseEntity<List<String>> suggestCities(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(cityAutocomplete.suggest(q, limit));
+    }
+
     @GetMapping("/search")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Search routes", description = "Search routes by source and destination (Admin only)")
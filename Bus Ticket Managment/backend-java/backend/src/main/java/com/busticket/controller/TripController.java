@@ -1,8 +1,15 @@
 package com.busticket.controller;
 
+import com.busticket.dto.ScheduleRequest;
+import com.busticket.dto.TripSearchPage;
 import com.busticket.dto.TripSearchRequest;
+import com.busticket.dto.TripSearchResult;
 import com.busticket.model.Trip;
+import com.busticket.service.JourneyPlanner;
+import com.busticket.service.ScheduleService;
+import com.busticket.service.SeatStreamService;
 import com.busticket.service.TripService;
+import com.busticket.service.WaitingRoomService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -12,12 +19,16 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -25,15 +36,56 @@ import java.util.Optional;
 @Tag(name = "Trip Management", description = "Trip management and search APIs")
 @CrossOrigin(origins = "*")
 public class TripController {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     
     @Autowired
     private TripService tripService;
     
+    @Autowired
+    private ScheduleService scheduleService;
+    
+    @Autowired
+    private SeatStreamService seatStreamService;
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private JourneyPlanner journeyPlanner;
+    
     @PostMapping("/search")
-    @Operation(summary = "Search trips", description = "Search available trips by source, destination, and date")
-    public ResponseEntity<List<Trip>> searchTrips(@Valid @RequestBody TripSearchRequest request) {
-        List<Trip> trips = tripService.searchTrips(request);
-        return ResponseEntity.ok(trips);
+    @Operation(summary = "Search trips", description = "Search available trips by source, destination, and date, with optional filters and sorting. "
+            + "When more trips match than fit on a page, the " + NEXT_CURSOR_HEADER + " header holds the 'after' value for the next page")
+    public ResponseEntity<List<TripSearchResult>> searchTrips(@Valid @RequestBody TripSearchRequest request) {
+        TripSearchPage page = tripService.searchTrips(request);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getTrips());
+    }
+    
+    @GetMapping("/calendar")
+    @Operation(summary = "Fare calendar", description = "Cheapest fare, trip count and seats left per day around a date, for one route")
+    public ResponseEntity<List<Map<String, Object>>> getFareCalendar(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "3") int days,
+            @RequestParam(defaultValue = "1") int passengers) {
+        return ResponseEntity.ok(tripService.getFareCalendar(source, destination, date, days, passengers));
+    }
+    
+    @GetMapping("/journeys")
+    @Operation(summary = "Find connecting journeys", description = "Direct trips and itineraries with up to two connections, earliest arrival first")
+    public ResponseEntity<List<Map<String, Object>>> findJourneys(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "1") int passengers,
+            @RequestParam(defaultValue = "2") int maxConnections) {
+        return ResponseEntity.ok(journeyPlanner.findJourneys(source, destination, date, passengers, maxConnections));
     }
     
     @GetMapping("/{tripId}/seats")
@@ -42,6 +94,12 @@ public class TripController {
         return ResponseEntity.ok(tripService.getTripSeats(tripId));
     }
     
+    @GetMapping(value = "/{tripId}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream trip seats", description = "Live seat map: a snapshot, then coalesced seat changes as Server-Sent Events")
+    public SseEmitter streamTripSeats(@PathVariable Long tripId) {
+        return seatStreamService.subscribe(tripId);
+    }
+    
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Create trip", description = "Create a new trip (Admin only)")
@@ -50,6 +108,36 @@ public class TripController {
         return ResponseEntity.ok(createdTrip);
     }
     
+    @PostMapping("/schedules")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Generate trips from schedules", description = "Expand recurring schedules into trips in the background (Admin only)")
+    public ResponseEntity<Map<String, Object>> generateSchedules(@Valid @RequestBody List<@Valid ScheduleRequest> schedules) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(scheduleService.generateTrips(schedules).toMap());
+    }
+    
+    @GetMapping("/schedules/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get schedule job progress", description = "Get the progress of a schedule generation job (Admin only)")
+    public ResponseEntity<Map<String, Object>> getScheduleJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(scheduleService.getJob(jobId).toMap());
+    }
+    
+    @PostMapping("/{tripId}/waiting-room")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Open waiting room", description = "Admit users to booking on a trip at a fixed rate (Admin only)")
+    public ResponseEntity<Map<String, Object>> openWaitingRoom(@PathVariable Long tripId,
+                                                               @RequestParam(defaultValue = "${app.waiting-room.admit-per-second:50}") int admitPerSecond) {
+        return ResponseEntity.ok(waitingRoomService.open(tripId, admitPerSecond));
+    }
+
+    @PostMapping("/{tripId}/waiting-room/close")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Close waiting room", description = "Let everyone book the trip directly again (Admin only)")
+    public ResponseEntity<String> closeWaitingRoom(@PathVariable Long tripId) {
+        waitingRoomService.close(tripId);
+        return ResponseEntity.ok("Waiting room closed");
+    }
+    
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Get all trips", description = "Get all trips (Admin only)")
@@ -0,0 +1,75 @@
+package com.busticket.dto;
+
+import com.busticket.model.Seat;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BookingLegRequest {
+    
+    @NotNull(message = "Trip ID is required")
+    private Long tripId;
+    
+    // Either explicit seat numbers, or a seat count to allocate the best available seats
+    @Size(min = 1, message = "At least one seat must be selected")
+    private List<Integer> seatNumbers;
+    
+    @Min(value = 1, message = "At least one seat must be selected")
+    private Integer seatCount;
+    
+    private Seat.SeatType seatPreference;
+    
+    // Admission token of this leg's waiting room; legs without one use the X-Queue-Token header
+    private String queueToken;
+    
+    // Constructors
+    public BookingLegRequest() {}
+    
+    public BookingLegRequest(Long tripId, List<Integer> seatNumbers) {
+        this.tripId = tripId;
+        this.seatNumbers = seatNumbers;
+    }
+    
+    // Getters and Setters
+    public Long getTripId() {
+        return tripId;
+    }
+    
+    public void setTripId(Long tripId) {
+        this.tripId = tripId;
+    }
+    
+    public List<Integer> getSeatNumbers() {
+        return seatNumbers;
+    }
+    
+    public void setSeatNumbers(List<Integer> seatNumbers) {
+        this.seatNumbers = seatNumbers;
+    }
+    
+    public Integer getSeatCount() {
+        return seatCount;
+    }
+    
+    public void setSeatCount(Integer seatCount) {
+        this.seatCount = seatCount;
+    }
+    
+    public Seat.SeatType getSeatPreference() {
+        return seatPreference;
+    }
+    
+    public void setSeatPreference(Seat.SeatType seatPreference) {
+        this.seatPreference = seatPreference;
+    }
+    
+    public String getQueueToken() {
+        return queueToken;
+    }
+    
+    public void setQueueToken(String queueToken) {
+        this.queueToken = queueToken;
+    }
+}
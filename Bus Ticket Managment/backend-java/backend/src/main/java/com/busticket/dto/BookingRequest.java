@@ -1,5 +1,7 @@
 package com.busticket.dto;
 
+import com.busticket.model.Seat;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
@@ -15,10 +17,15 @@ public class BookingRequest {
     @NotNull(message = "Trip ID is required")
     private Long tripId;
     
-    @NotNull(message = "Seat numbers are required")
+    // Either explicit seat numbers, or a seat count to allocate the best available seats
     @Size(min = 1, message = "At least one seat must be selected")
     private List<Integer> seatNumbers;
     
+    @Min(value = 1, message = "At least one seat must be selected")
+    private Integer seatCount;
+    
+    private Seat.SeatType seatPreference;
+    
     @NotNull(message = "Total amount is required")
     @Positive(message = "Total amount must be positive")
     private BigDecimal totalAmount;
@@ -60,6 +67,22 @@ public class BookingRequest {
         this.seatNumbers = seatNumbers;
     }
     
+    public Integer getSeatCount() {
+        return seatCount;
+    }
+    
+    public void setSeatCount(Integer seatCount) {
+        this.seatCount = seatCount;
+    }
+    
+    public Seat.SeatType getSeatPreference() {
+        return seatPreference;
+    }
+    
+    public void setSeatPreference(Seat.SeatType seatPreference) {
+        this.seatPreference = seatPreference;
+    }
+    
     public BigDecimal getTotalAmount() {
         return totalAmount;
     }
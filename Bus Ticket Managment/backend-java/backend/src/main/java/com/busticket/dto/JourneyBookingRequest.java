@@ -0,0 +1,68 @@
+package com.busticket.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// One booking over several trips of a connecting journey, in travel order
+public class JourneyBookingRequest {
+    
+    @NotNull(message = "User ID is required")
+    private Long userId;
+    
+    @NotEmpty(message = "At least one leg is required")
+    @Valid
+    private List<BookingLegRequest> legs;
+    
+    @NotNull(message = "Total amount is required")
+    @Positive(message = "Total amount must be positive")
+    private BigDecimal totalAmount;
+    
+    private String specialRequests;
+    
+    // Constructors
+    public JourneyBookingRequest() {}
+    
+    public JourneyBookingRequest(Long userId, List<BookingLegRequest> legs, BigDecimal totalAmount) {
+        this.userId = userId;
+        this.legs = legs;
+        this.totalAmount = totalAmount;
+    }
+    
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public List<BookingLegRequest> getLegs() {
+        return legs;
+    }
+    
+    public void setLegs(List<BookingLegRequest> legs) {
+        this.legs = legs;
+    }
+    
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+    
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+    
+    public String getSpecialRequests() {
+        return specialRequests;
+    }
+    
+    public void setSpecialRequests(String specialRequests) {
+        this.specialRequests = specialRequests;
+    }
+}
@@ -0,0 +1,119 @@
+package com.busticket.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+public class ScheduleRequest {
+    
+    @NotNull(message = "Route ID is required")
+    private Long routeId;
+    
+    @NotNull(message = "Bus ID is required")
+    private Long busId;
+    
+    @NotNull(message = "Departure time is required")
+    private LocalTime departureTime;
+    
+    @NotNull(message = "Arrival time is required")
+    private LocalTime arrivalTime;
+    
+    @NotNull(message = "Fare is required")
+    @Positive(message = "Fare must be positive")
+    private BigDecimal fare;
+    
+    @NotEmpty(message = "At least one day of week is required")
+    private Set<DayOfWeek> daysOfWeek;
+    
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+    
+    @NotNull(message = "End date is required")
+    private LocalDate endDate;
+    
+    // Constructors
+    public ScheduleRequest() {}
+    
+    public ScheduleRequest(Long routeId, Long busId, LocalTime departureTime, LocalTime arrivalTime,
+                           BigDecimal fare, Set<DayOfWeek> daysOfWeek, LocalDate startDate, LocalDate endDate) {
+        this.routeId = routeId;
+        this.busId = busId;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.fare = fare;
+        this.daysOfWeek = daysOfWeek;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+    
+    // Getters and Setters
+    public Long getRouteId() {
+        return routeId;
+    }
+    
+    public void setRouteId(Long routeId) {
+        this.routeId = routeId;
+    }
+    
+    public Long getBusId() {
+        return busId;
+    }
+    
+    public void setBusId(Long busId) {
+        this.busId = busId;
+    }
+    
+    public LocalTime getDepartureTime() {
+        return departureTime;
+    }
+    
+    public void setDepartureTime(LocalTime departureTime) {
+        this.departureTime = departureTime;
+    }
+    
+    public LocalTime getArrivalTime() {
+        return arrivalTime;
+    }
+    
+    public void setArrivalTime(LocalTime arrivalTime) {
+        this.arrivalTime = arrivalTime;
+    }
+    
+    public BigDecimal getFare() {
+        return fare;
+    }
+    
+    public void setFare(BigDecimal fare) {
+        this.fare = fare;
+    }
+    
+    public Set<DayOfWeek> getDaysOfWeek() {
+        return daysOfWeek;
+    }
+    
+    public void setDaysOfWeek(Set<DayOfWeek> daysOfWeek) {
+        this.daysOfWeek = daysOfWeek;
+    }
+    
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+    
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+    
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+    
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+}
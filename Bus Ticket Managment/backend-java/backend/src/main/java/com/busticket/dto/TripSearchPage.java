@@ -0,0 +1,25 @@
+package com.busticket.dto;
+
+import java.util.List;
+
+/**
+ * One page of trip search results, with the cursor for the next page or null on the last one.
+ */
+public class TripSearchPage {
+
+    private final List<TripSearchResult> trips;
+    private final String nextCursor;
+
+    public TripSearchPage(List<TripSearchResult> trips, String nextCursor) {
+        this.trips = trips;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TripSearchResult> getTrips() {
+        return trips;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -3,7 +3,9 @@ package com.busticket.dto;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalTime;
 
 public class TripSearchRequest {
     
@@ -20,6 +22,12 @@ public class TripSearchRequest {
     private String busType; // Optional filter
     private String sortBy = "departureTime"; // departureTime, fare, duration
     private String sortOrder = "ASC"; // ASC, DESC
+    private LocalTime departureFrom; // Optional departure window
+    private LocalTime departureTo;
+    private BigDecimal minFare; // Optional price band
+    private BigDecimal maxFare;
+    private String after; // Cursor from the previous page
+    private Integer limit;
     
     // Constructors
     public TripSearchRequest() {}
@@ -93,4 +101,52 @@ public class TripSearchRequest {
     public void setSortOrder(String sortOrder) {
         this.sortOrder = sortOrder;
     }
+    
+    public LocalTime getDepartureFrom() {
+        return departureFrom;
+    }
+    
+    public void setDepartureFrom(LocalTime departureFrom) {
+        this.departureFrom = departureFrom;
+    }
+    
+    public LocalTime getDepartureTo() {
+        return departureTo;
+    }
+    
+    public void setDepartureTo(LocalTime departureTo) {
+        this.departureTo = departureTo;
+    }
+    
+    public BigDecimal getMinFare() {
+        return minFare;
+    }
+    
+    public void setMinFare(BigDecimal minFare) {
+        this.minFare = minFare;
+    }
+    
+    public BigDecimal getMaxFare() {
+        return maxFare;
+    }
+    
+    public void setMaxFare(BigDecimal maxFare) {
+        this.maxFare = maxFare;
+    }
+    
+    public String getAfter() {
+        return after;
+    }
+    
+    public void setAfter(String after) {
+        this.after = after;
+    }
+    
+    public Integer getLimit() {
+        return limit;
+    }
+    
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
 }
@@ -0,0 +1,202 @@
+package com.busticket.dto;
+
+import com.busticket.model.Bus;
+import com.busticket.model.Trip;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * What the search results page needs of a trip, its bus and its route. Immutable, so cached
+ * results can be shared; the live seat count is applied with {@link #withAvailableSeats}, and trips
+ * without enough seats for the search are marked with {@link #asSoldOut}.
+ * Serializes with the same nested bus and route shape as {@link Trip}.
+ */
+public class TripSearchResult {
+
+    private final Long id;
+    private final String tripCode;
+    private final LocalDate tripDate;
+    private final LocalTime departureTime;
+    private final LocalTime arrivalTime;
+    private final BigDecimal fare;
+    private final Integer availableSeats;
+    private final Trip.TripStatus status;
+    private final BusSummary bus;
+    private final RouteSummary route;
+    private final boolean soldOut;
+
+    public TripSearchResult(Long id, String tripCode, LocalDate tripDate, LocalTime departureTime,
+                            LocalTime arrivalTime, BigDecimal fare, Integer availableSeats, Trip.TripStatus status,
+                            Long busId, String busNumber, Bus.BusType busType, String operatorName,
+                            Integer totalSeats, String amenities,
+                            Long routeId, String source, String destination, Double distance, Integer duration) {
+        this(id, tripCode, tripDate, departureTime, arrivalTime, fare, availableSeats, status,
+                new BusSummary(busId, busNumber, busType, operatorName, totalSeats, amenities),
+                new RouteSummary(routeId, source, destination, distance, duration), false);
+    }
+
+    private TripSearchResult(Long id, String tripCode, LocalDate tripDate, LocalTime departureTime,
+                             LocalTime arrivalTime, BigDecimal fare, Integer availableSeats, Trip.TripStatus status,
+                             BusSummary bus, RouteSummary route, boolean soldOut) {
+        this.id = id;
+        this.tripCode = tripCode;
+        this.tripDate = tripDate;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.fare = fare;
+        this.availableSeats = availableSeats;
+        this.status = status;
+        this.bus = bus;
+        this.route = route;
+        this.soldOut = soldOut;
+    }
+
+    // The trip's bus and route must be loaded
+    public static TripSearchResult from(Trip trip) {
+        Bus bus = trip.getBus();
+        return new TripSearchResult(trip.getId(), trip.getTripCode(), trip.getTripDate(), trip.getDepartureTime(),
+                trip.getArrivalTime(), trip.getFare(), trip.getAvailableSeats(), trip.getStatus(),
+                bus.getId(), bus.getBusNumber(), bus.getBusType(), bus.getOperatorName(), bus.getTotalSeats(),
+                bus.getAmenities(),
+                trip.getRoute().getId(), trip.getRoute().getSource(), trip.getRoute().getDestination(),
+                trip.getRoute().getDistance(), trip.getRoute().getDuration());
+    }
+
+    public TripSearchResult withAvailableSeats(Integer seats) {
+        return new TripSearchResult(id, tripCode, tripDate, departureTime, arrivalTime, fare, seats, status, bus, route,
+                soldOut);
+    }
+
+    public TripSearchResult asSoldOut() {
+        return new TripSearchResult(id, tripCode, tripDate, departureTime, arrivalTime, fare, availableSeats, status,
+                bus, route, true);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTripCode() {
+        return tripCode;
+    }
+
+    public LocalDate getTripDate() {
+        return tripDate;
+    }
+
+    public LocalTime getDepartureTime() {
+        return departureTime;
+    }
+
+    public LocalTime getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public BigDecimal getFare() {
+        return fare;
+    }
+
+    public Integer getAvailableSeats() {
+        return availableSeats;
+    }
+
+    public Trip.TripStatus getStatus() {
+        return status;
+    }
+
+    public BusSummary getBus() {
+        return bus;
+    }
+
+    public RouteSummary getRoute() {
+        return route;
+    }
+
+    // Too few seats left for the passengers searched for; the trip is still listed
+    public boolean isSoldOut() {
+        return soldOut;
+    }
+
+    public static class BusSummary {
+
+        private final Long id;
+        private final String busNumber;
+        private final Bus.BusType busType;
+        private final String operatorName;
+        private final Integer totalSeats;
+        private final String amenities;
+
+        BusSummary(Long id, String busNumber, Bus.BusType busType, String operatorName, Integer totalSeats,
+                   String amenities) {
+            this.id = id;
+            this.busNumber = busNumber;
+            this.busType = busType;
+            this.operatorName = operatorName;
+            this.totalSeats = totalSeats;
+            this.amenities = amenities;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getBusNumber() {
+            return busNumber;
+        }
+
+        public Bus.BusType getBusType() {
+            return busType;
+        }
+
+        public String getOperatorName() {
+            return operatorName;
+        }
+
+        public Integer getTotalSeats() {
+            return totalSeats;
+        }
+
+        public String getAmenities() {
+            return amenities;
+        }
+    }
+
+    public static class RouteSummary {
+
+        private final Long id;
+        private final String source;
+        private final String destination;
+        private final Double distance;
+        private final Integer duration;
+
+        RouteSummary(Long id, String source, String destination, Double distance, Integer duration) {
+            this.id = id;
+            this.source = source;
+            this.destination = destination;
+            this.distance = distance;
+            this.duration = duration;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        public Double getDistance() {
+            return distance;
+        }
+
+        public Integer getDuration() {
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.busticket.dto;
+
+import com.busticket.model.Seat;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class WaitlistRequest {
+    
+    @NotNull(message = "User ID is required")
+    private Long userId;
+    
+    @NotNull(message = "Trip ID is required")
+    private Long tripId;
+    
+    @NotNull(message = "Seat count is required")
+    @Min(value = 1, message = "At least one seat must be requested")
+    private Integer seatCount;
+    
+    private Seat.SeatType seatPreference;
+    
+    // Constructors
+    public WaitlistRequest() {}
+    
+    public WaitlistRequest(Long userId, Long tripId, Integer seatCount) {
+        this.userId = userId;
+        this.tripId = tripId;
+        this.seatCount = seatCount;
+    }
+    
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public Long getTripId() {
+        return tripId;
+    }
+    
+    public void setTripId(Long tripId) {
+        this.tripId = tripId;
+    }
+    
+    public Integer getSeatCount() {
+        return seatCount;
+    }
+    
+    public void setSeatCount(Integer seatCount) {
+        this.seatCount = seatCount;
+    }
+    
+    public Seat.SeatType getSeatPreference() {
+        return seatPreference;
+    }
+    
+    public void setSeatPreference(Seat.SeatType seatPreference) {
+        this.seatPreference = seatPreference;
+    }
+}
@@ -3,6 +3,7 @@ package com.busticket.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.ColumnDefault;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.math.BigDecimal;
@@ -12,7 +13,9 @@ import java.util.List;
 
 @Entity
 @JsonIgnoreProperties({"payment", "ticket", "hibernateLazyInitializer", "handler"})
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+    @Index(name = "idx_bookings_status_id", columnList = "booking_status, id")
+})
 public class Booking {
     
     @Id
@@ -63,6 +66,11 @@ public class Booking {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+    
     // Relationships
     @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<BookingSeat> bookingSeats = new ArrayList<>();
@@ -211,6 +219,14 @@ public class Booking {
         this.updatedAt = updatedAt;
     }
     
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
     public List<BookingSeat> getBookingSeats() {
         return bookingSeats;
     }
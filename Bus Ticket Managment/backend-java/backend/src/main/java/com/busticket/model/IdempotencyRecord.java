@@ -0,0 +1,159 @@
+package com.busticket.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The stored response of a request sent with an Idempotency-Key, replayed when the same client
+ * sends the key again before it expires. The row is inserted IN_PROGRESS before the request runs,
+ * so the unique key rejects a duplicate on any instance, and completed with the response.
+ */
+@Entity
+@Table(name = "idempotency_records",
+       uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_key_scope",
+                                             columnNames = {"idempotency_key", "request_scope"}),
+       indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+    
+    @Column(name = "request_scope", nullable = false)
+    private String requestScope; // user, method and path the key was used for
+    
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash; // SHA-256 of the request body
+    
+    @Column(name = "status_code", nullable = false)
+    private int statusCode;
+    
+    @Column(name = "content_type")
+    private String contentType;
+    
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "record_status")
+    private RecordStatus status = RecordStatus.COMPLETED;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    // Constructors
+    public IdempotencyRecord() {}
+    
+    public IdempotencyRecord(String idempotencyKey, String requestScope, String requestHash, int statusCode,
+                             String contentType, String responseBody, LocalDateTime expiresAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.requestScope = requestScope;
+        this.requestHash = requestHash;
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.responseBody = responseBody;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
+    public String getRequestScope() {
+        return requestScope;
+    }
+    
+    public void setRequestScope(String requestScope) {
+        this.requestScope = requestScope;
+    }
+    
+    public String getRequestHash() {
+        return requestHash;
+    }
+    
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+    
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+    
+    public String getResponseBody() {
+        return responseBody;
+    }
+    
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+    
+    public RecordStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(RecordStatus status) {
+        this.status = status;
+    }
+    
+    // Rows from before the column existed are null and count as completed
+    public boolean isInProgress() {
+        return status == RecordStatus.IN_PROGRESS;
+    }
+    
+    public enum RecordStatus {
+        IN_PROGRESS, COMPLETED
+    }
+}
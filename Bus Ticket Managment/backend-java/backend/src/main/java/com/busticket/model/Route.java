@@ -12,7 +12,9 @@ import java.util.List;
 
 @Entity
 @JsonIgnoreProperties({"trips", "hibernateLazyInitializer", "handler"})
-@Table(name = "routes")
+@Table(name = "routes", indexes = {
+    @Index(name = "idx_routes_source_destination", columnList = "source, destination")
+})
 public class Route {
     
     @Id
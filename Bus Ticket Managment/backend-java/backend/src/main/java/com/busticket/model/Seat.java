@@ -3,13 +3,16 @@ package com.busticket.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.ColumnDefault;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.time.LocalDateTime;
 
 @Entity
 @JsonIgnoreProperties({"trip", "hibernateLazyInitializer", "handler"})
-@Table(name = "seats")
+@Table(name = "seats", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_seats_trip_seat_number", columnNames = {"trip_id", "seat_number"})
+})
 public class Seat {
     
     @Id
@@ -43,12 +46,21 @@ public class Seat {
     @Column(name = "hold_expiry")
     private LocalDateTime holdExpiry;
     
+    // Booking that last took the seat; only its confirm or cancel may touch the seat
+    @Column(name = "hold_booking_id")
+    private Long holdBookingId;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -134,6 +146,14 @@ public class Seat {
         this.holdExpiry = holdExpiry;
     }
     
+    public Long getHoldBookingId() {
+        return holdBookingId;
+    }
+    
+    public void setHoldBookingId(Long holdBookingId) {
+        this.holdBookingId = holdBookingId;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -150,6 +170,14 @@ public class Seat {
         this.updatedAt = updatedAt;
     }
     
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
     public enum SeatType {
         WINDOW("Window"),
         AISLE("Aisle"),
@@ -13,8 +13,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@JsonIgnoreProperties({"seats", "bookings", "hibernateLazyInitializer", "handler"})
-@Table(name = "trips")
+@JsonIgnoreProperties({"seats", "bookings", "seatState", "seatStateVersion", "hibernateLazyInitializer", "handler"})
+@Table(name = "trips", indexes = {
+    @Index(name = "idx_trips_route_date_departure", columnList = "route_id, trip_date, departure_time")
+})
 public class Trip {
     
     @Id
@@ -48,9 +50,17 @@ public class Trip {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal fare;
     
-    @Column(name = "available_seats")
+    // Live counter, only changed by the guarded updates in TripRepository once the trip exists
+    @Column(name = "available_seats", updatable = false)
     private Integer availableSeats;
     
+    // 2 bits per seat, see SeatStateCodec; only ever written by the conditional update in TripRepository
+    @Column(name = "seat_state", length = 64, insertable = false, updatable = false)
+    private byte[] seatState;
+    
+    @Column(name = "seat_state_version", insertable = false, updatable = false)
+    private Long seatStateVersion;
+    
     @Enumerated(EnumType.STRING)
     @Column(name = "trip_status", nullable = false)
     private TripStatus status = TripStatus.SCHEDULED;
@@ -176,6 +186,22 @@ public class Trip {
         this.availableSeats = availableSeats;
     }
     
+    public byte[] getSeatState() {
+        return seatState;
+    }
+    
+    public void setSeatState(byte[] seatState) {
+        this.seatState = seatState;
+    }
+    
+    public Long getSeatStateVersion() {
+        return seatStateVersion;
+    }
+    
+    public void setSeatStateVersion(Long seatStateVersion) {
+        this.seatStateVersion = seatStateVersion;
+    }
+    
     public TripStatus getStatus() {
         return status;
     }
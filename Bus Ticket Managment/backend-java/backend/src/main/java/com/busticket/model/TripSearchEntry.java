@@ -0,0 +1,169 @@
+package com.busticket.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * One scheduled trip as trip search reads it: route keys, date and time first, then everything the
+ * results page shows of the trip, its bus and its route, so a search is one range scan over this
+ * table without joins. Keys are the route's source and destination trimmed and lower-cased.
+ * Written only by {@link com.busticket.repository.TripSearchIndexRepository}.
+ */
+@Entity
+@Table(name = "trip_search_index", indexes = {
+    @Index(name = "idx_trip_search_route_date", columnList = "source_key, destination_key, trip_date, departure_time"),
+    @Index(name = "idx_trip_search_trip_date", columnList = "trip_date")
+})
+public class TripSearchEntry {
+    
+    @Id
+    @Column(name = "trip_id")
+    private Long tripId;
+    
+    @Column(name = "source_key", nullable = false)
+    private String sourceKey;
+    
+    @Column(name = "destination_key", nullable = false)
+    private String destinationKey;
+    
+    @Column(name = "trip_date", nullable = false)
+    private LocalDate tripDate;
+    
+    @Column(name = "departure_time", nullable = false)
+    private LocalTime departureTime;
+    
+    @Column(name = "arrival_time", nullable = false)
+    private LocalTime arrivalTime;
+    
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal fare;
+    
+    @Column(name = "free_seats")
+    private Integer freeSeats;
+    
+    @Column(name = "trip_code")
+    private String tripCode;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "trip_status", nullable = false)
+    private Trip.TripStatus status;
+    
+    @Column(name = "bus_id", nullable = false)
+    private Long busId;
+    
+    @Column(name = "bus_number")
+    private String busNumber;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bus_type")
+    private Bus.BusType busType;
+    
+    @Column(name = "operator_name")
+    private String operatorName;
+    
+    @Column(name = "total_seats")
+    private Integer totalSeats;
+    
+    @Column(name = "amenities", columnDefinition = "TEXT")
+    private String amenities;
+    
+    @Column(name = "route_id", nullable = false)
+    private Long routeId;
+    
+    private String source;
+    
+    private String destination;
+    
+    private Double distance;
+    
+    private Integer duration;
+    
+    public TripSearchEntry() {}
+    
+    public Long getTripId() {
+        return tripId;
+    }
+    
+    public String getSourceKey() {
+        return sourceKey;
+    }
+    
+    public String getDestinationKey() {
+        return destinationKey;
+    }
+    
+    public LocalDate getTripDate() {
+        return tripDate;
+    }
+    
+    public LocalTime getDepartureTime() {
+        return departureTime;
+    }
+    
+    public LocalTime getArrivalTime() {
+        return arrivalTime;
+    }
+    
+    public BigDecimal getFare() {
+        return fare;
+    }
+    
+    public Integer getFreeSeats() {
+        return freeSeats;
+    }
+    
+    public String getTripCode() {
+        return tripCode;
+    }
+    
+    public Trip.TripStatus getStatus() {
+        return status;
+    }
+    
+    public Long getBusId() {
+        return busId;
+    }
+    
+    public String getBusNumber() {
+        return busNumber;
+    }
+    
+    public Bus.BusType getBusType() {
+        return busType;
+    }
+    
+    public String getOperatorName() {
+        return operatorName;
+    }
+    
+    public Integer getTotalSeats() {
+        return totalSeats;
+    }
+    
+    public String getAmenities() {
+        return amenities;
+    }
+    
+    public Long getRouteId() {
+        return routeId;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public String getDestination() {
+        return destination;
+    }
+    
+    public Double getDistance() {
+        return distance;
+    }
+    
+    public Integer getDuration() {
+        return duration;
+    }
+}
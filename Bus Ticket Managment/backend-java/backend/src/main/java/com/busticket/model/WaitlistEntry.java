@@ -0,0 +1,160 @@
+package com.busticket.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+
+@Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Table(name = "waitlist_entries", indexes = {
+    @Index(name = "idx_waitlist_status_trip_id", columnList = "waitlist_status, trip_id, id")
+})
+public class WaitlistEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "User is required")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @NotNull(message = "Trip is required")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "trip_id", nullable = false)
+    private Trip trip;
+    
+    @Column(name = "seat_count", nullable = false)
+    private Integer seatCount;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "seat_preference")
+    private Seat.SeatType seatPreference;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "waitlist_status", nullable = false)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+    
+    // The booking holding the seats once the entry is promoted
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booking_id")
+    private Booking booking;
+    
+    @Column(name = "promoted_at")
+    private LocalDateTime promotedAt;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Constructors
+    public WaitlistEntry() {}
+    
+    public WaitlistEntry(User user, Trip trip, Integer seatCount, Seat.SeatType seatPreference) {
+        this.user = user;
+        this.trip = trip;
+        this.seatCount = seatCount;
+        this.seatPreference = seatPreference;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public void setUser(User user) {
+        this.user = user;
+    }
+    
+    public Trip getTrip() {
+        return trip;
+    }
+    
+    public void setTrip(Trip trip) {
+        this.trip = trip;
+    }
+    
+    public Integer getSeatCount() {
+        return seatCount;
+    }
+    
+    public void setSeatCount(Integer seatCount) {
+        this.seatCount = seatCount;
+    }
+    
+    public Seat.SeatType getSeatPreference() {
+        return seatPreference;
+    }
+    
+    public void setSeatPreference(Seat.SeatType seatPreference) {
+        this.seatPreference = seatPreference;
+    }
+    
+    public WaitlistStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(WaitlistStatus status) {
+        this.status = status;
+    }
+    
+    public Booking getBooking() {
+        return booking;
+    }
+    
+    public void setBooking(Booking booking) {
+        this.booking = booking;
+    }
+    
+    public LocalDateTime getPromotedAt() {
+        return promotedAt;
+    }
+    
+    public void setPromotedAt(LocalDateTime promotedAt) {
+        this.promotedAt = promotedAt;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public enum WaitlistStatus {
+        WAITING, PROMOTED, CANCELLED
+    }
+}
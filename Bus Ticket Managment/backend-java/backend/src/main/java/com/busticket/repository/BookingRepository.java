@@ -2,6 +2,7 @@ package com.busticket.repository;
 
 import com.busticket.model.Booking;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Pageable;
@@ -73,4 +74,29 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     
     @Query("SELECT b FROM Booking b WHERE b.bookingDate < :expiryDate AND b.status = 'PENDING'")
     List<Booking> findExpiredPendingBookings(@Param("expiryDate") LocalDateTime expiryDate);
+    
+    // Keyset page of expired pending bookings: booking id and trip id, ordered by booking id
+    @Query("SELECT b.id, b.trip.id FROM Booking b WHERE b.status = 'PENDING' " +
+           "AND b.bookingDate < :expiryDate AND b.id > :afterId ORDER BY b.id")
+    List<Object[]> findExpiredPendingBookingRefs(@Param("expiryDate") LocalDateTime expiryDate,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+    
+    // A booking is only expired once none of its legs still has a run-out hold left to release
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'EXPIRED', b.version = b.version + 1, b.updatedAt = :now " +
+           "WHERE b.id IN :bookingIds AND b.status = 'PENDING' AND NOT EXISTS (" +
+           "SELECT bs.id FROM BookingSeat bs JOIN bs.seat s WHERE bs.booking.id = b.id " +
+           "AND s.isBooked = false AND s.isHold = true AND s.holdExpiry <= :now)")
+    int expirePendingBookings(@Param("bookingIds") List<Long> bookingIds, @Param("now") LocalDateTime now);
+    
+    // Booking id, trip id and latest hold deadline of every pending booking that still holds seats
+    @Query("SELECT bs.booking.id, s.trip.id, MAX(s.holdExpiry) FROM BookingSeat bs JOIN bs.seat s " +
+           "WHERE bs.booking.status = 'PENDING' AND s.isHold = true AND s.isBooked = false " +
+           "GROUP BY bs.booking.id, s.trip.id")
+    List<Object[]> findPendingHoldDeadlines();
+    
+    // Booking id and trip id of every trip the given bookings hold seats on, one row per leg
+    @Query("SELECT DISTINCT bs.booking.id, bs.seat.trip.id FROM BookingSeat bs WHERE bs.booking.id IN :bookingIds")
+    List<Object[]> findSeatTripIdsByBookingIds(@Param("bookingIds") List<Long> bookingIds);
 }
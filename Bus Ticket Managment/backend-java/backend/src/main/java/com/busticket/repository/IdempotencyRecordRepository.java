@@ -0,0 +1,46 @@
+package com.busticket.repository;
+
+import com.busticket.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    
+    Optional<IdempotencyRecord> findByIdempotencyKeyAndRequestScope(String idempotencyKey, String requestScope);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+    
+    // Frees a key whose record expired but was not purged yet, so it can be claimed again
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.requestScope = :scope " +
+           "AND r.expiresAt < :now")
+    int deleteExpiredKey(@Param("key") String idempotencyKey, @Param("scope") String requestScope,
+                         @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'COMPLETED', r.statusCode = :statusCode, " +
+           "r.contentType = :contentType, r.responseBody = :responseBody, r.expiresAt = :expiresAt " +
+           "WHERE r.idempotencyKey = :key AND r.requestScope = :scope AND r.status = 'IN_PROGRESS'")
+    int complete(@Param("key") String idempotencyKey, @Param("scope") String requestScope,
+                 @Param("statusCode") int statusCode, @Param("contentType") String contentType,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    // Releases the claim of a request that failed, so the client can retry with the same key
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.requestScope = :scope " +
+           "AND r.status = 'IN_PROGRESS'")
+    int deleteInProgress(@Param("key") String idempotencyKey, @Param("scope") String requestScope);
+}
@@ -24,6 +24,12 @@ public interface RouteRepository extends JpaRepository<Route, Long> {
     @Query("SELECT r FROM Route r WHERE r.routeCode = :routeCode")
     Route findByRouteCode(@Param("routeCode") String routeCode);
     
+    // Route id, source, destination, active flag and confirmed booking count, for ranking cities
+    @Query("SELECT r.id, r.source, r.destination, r.isActive, COUNT(b.id) FROM Route r " +
+           "LEFT JOIN r.trips t LEFT JOIN Booking b ON b.trip = t AND b.status = 'CONFIRMED' " +
+           "GROUP BY r.id, r.source, r.destination, r.isActive")
+    List<Object[]> findRoutePopularity();
+    
     @Query("SELECT r FROM Route r WHERE r.distance BETWEEN :minDistance AND :maxDistance")
     List<Route> findByDistanceRange(@Param("minDistance") Double minDistance, @Param("maxDistance") Double maxDistance);
     
@@ -0,0 +1,55 @@
+package com.busticket.repository;
+
+import com.busticket.model.Seat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Inserts seat rows with JDBC batching. Seat ids are IDENTITY columns, which Hibernate can never
+ * batch, so a trip's seats would otherwise cost one INSERT round trip each. Joins the surrounding
+ * transaction like any other repository call.
+ */
+@Repository
+public class SeatBatchRepository {
+
+    private static final String INSERT_SEAT_SQL =
+            "INSERT INTO seats (trip_id, seat_number, seat_type, seat_status, is_booked, is_hold, " +
+            "hold_expiry, hold_booking_id, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public void insertSeats(List<Seat> seats) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SEAT_SQL, seats, batchSize, (ps, seat) -> {
+            ps.setLong(1, seat.getTrip().getId());
+            ps.setInt(2, seat.getSeatNumber());
+            ps.setString(3, seat.getSeatType().name());
+            ps.setString(4, seat.getStatus().name());
+            ps.setBoolean(5, seat.isBooked());
+            ps.setBoolean(6, seat.isHold());
+            if (seat.getHoldExpiry() != null) {
+                ps.setTimestamp(7, Timestamp.valueOf(seat.getHoldExpiry()));
+            } else {
+                ps.setNull(7, Types.TIMESTAMP);
+            }
+            if (seat.getHoldBookingId() != null) {
+                ps.setLong(8, seat.getHoldBookingId());
+            } else {
+                ps.setNull(8, Types.BIGINT);
+            }
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+        });
+    }
+}
@@ -2,6 +2,7 @@ package com.busticket.repository;
 
 import com.busticket.model.Seat;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -20,6 +21,10 @@ public interface SeatRepository extends JpaRepository<Seat, Long> {
     
     List<Seat> findByTripIdAndIsHoldTrue(Long tripId);
     
+    // Id, seat number and hold deadline of every seat row of a trip, without loading the entities
+    @Query("SELECT s.id, s.seatNumber, s.holdExpiry FROM Seat s WHERE s.trip.id = :tripId")
+    List<Object[]> findSeatRefsByTripId(@Param("tripId") Long tripId);
+    
     @Query("SELECT s FROM Seat s WHERE s.trip.id = :tripId AND s.isBooked = false AND (s.isHold = false OR s.holdExpiry < :now)")
     List<Seat> findAvailableSeats(@Param("tripId") Long tripId, @Param("now") LocalDateTime now);
     
@@ -33,4 +38,67 @@ public interface SeatRepository extends JpaRepository<Seat, Long> {
     
     @Query("SELECT COUNT(s) FROM Seat s WHERE s.trip.id = :tripId AND s.isBooked = false AND (s.isHold = false OR s.holdExpiry < :now)")
     long countAvailableSeatsByTripId(@Param("tripId") Long tripId, @Param("now") LocalDateTime now);
+    
+    // Seats whose hold ran out without being released; holdAvailableSeats takes them over
+    @Query("SELECT COUNT(s) FROM Seat s WHERE s.trip.id = :tripId AND s.seatNumber IN :seatNumbers " +
+           "AND s.isBooked = false AND s.isHold = true AND s.holdExpiry < :now")
+    long countLapsedHolds(@Param("tripId") Long tripId,
+                          @Param("seatNumbers") List<Integer> seatNumbers,
+                          @Param("now") LocalDateTime now);
+    
+    // Trip id and seat number of every seat linked to a booking
+    @Query("SELECT s.trip.id, s.seatNumber FROM Seat s " +
+           "WHERE s.id IN (SELECT bs.seat.id FROM BookingSeat bs WHERE bs.booking.id = :bookingId)")
+    List<Object[]> findTripSeatNumbersByBookingId(@Param("bookingId") Long bookingId);
+    
+    // Conditional bulk updates: callers compare the affected row count with the number of seats they expect.
+    // A hold records its booking on the seat, and confirms and releases only match seats their booking
+    // still owns: a seat linked to a booking may since have been taken over by another one's hold.
+    // Seats taken before owners were recorded have none and stay with the bookings linked to them
+    @Modifying
+    @Query("UPDATE Seat s SET s.isHold = true, s.holdExpiry = :holdExpiry, s.holdBookingId = :bookingId, " +
+           "s.status = 'HOLD', s.version = s.version + 1, s.updatedAt = :now " +
+           "WHERE s.trip.id = :tripId AND s.seatNumber IN :seatNumbers AND s.isBooked = false " +
+           "AND (s.isHold = false OR s.holdExpiry IS NULL OR s.holdExpiry < :now)")
+    int holdAvailableSeats(@Param("tripId") Long tripId, 
+                           @Param("seatNumbers") List<Integer> seatNumbers,
+                           @Param("bookingId") Long bookingId,
+                           @Param("now") LocalDateTime now, 
+                           @Param("holdExpiry") LocalDateTime holdExpiry);
+    
+    @Modifying
+    @Query("UPDATE Seat s SET s.isBooked = true, s.isHold = false, s.holdExpiry = null, " +
+           "s.status = 'BOOKED', s.version = s.version + 1, s.updatedAt = :now " +
+           "WHERE s.id IN (SELECT bs.seat.id FROM BookingSeat bs WHERE bs.booking.id = :bookingId) " +
+           "AND (s.holdBookingId = :bookingId OR s.holdBookingId IS NULL) " +
+           "AND s.isBooked = false AND s.isHold = true AND s.holdExpiry > :now")
+    int confirmHeldSeats(@Param("bookingId") Long bookingId, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Seat s SET s.isBooked = false, s.holdBookingId = null, " +
+           "s.status = 'AVAILABLE', s.version = s.version + 1, s.updatedAt = :now " +
+           "WHERE s.id IN (SELECT bs.seat.id FROM BookingSeat bs WHERE bs.booking.id = :bookingId) " +
+           "AND (s.holdBookingId = :bookingId OR s.holdBookingId IS NULL) " +
+           "AND s.isBooked = true")
+    int releaseBookedSeats(@Param("bookingId") Long bookingId, @Param("now") LocalDateTime now);
+    
+    // Seats of the given bookings whose hold has run out and has not been taken over by another hold
+    @Query("SELECT s.seatNumber FROM Seat s WHERE s.trip.id = :tripId " +
+           "AND s.id IN (SELECT bs.seat.id FROM BookingSeat bs WHERE bs.booking.id IN :bookingIds) " +
+           "AND (s.holdBookingId IN :bookingIds OR s.holdBookingId IS NULL) " +
+           "AND s.isBooked = false AND s.isHold = true AND s.holdExpiry <= :now")
+    List<Integer> findExpiredHeldSeatNumbers(@Param("tripId") Long tripId, 
+                                             @Param("bookingIds") List<Long> bookingIds,
+                                             @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Seat s SET s.isHold = false, s.holdExpiry = null, s.holdBookingId = null, " +
+           "s.status = 'AVAILABLE', s.version = s.version + 1, s.updatedAt = :now " +
+           "WHERE s.trip.id = :tripId " +
+           "AND s.id IN (SELECT bs.seat.id FROM BookingSeat bs WHERE bs.booking.id IN :bookingIds) " +
+           "AND (s.holdBookingId IN :bookingIds OR s.holdBookingId IS NULL) " +
+           "AND s.isBooked = false AND s.isHold = true AND s.holdExpiry <= :now")
+    int releaseExpiredHolds(@Param("tripId") Long tripId, 
+                            @Param("bookingIds") List<Long> bookingIds,
+                            @Param("now") LocalDateTime now);
 }
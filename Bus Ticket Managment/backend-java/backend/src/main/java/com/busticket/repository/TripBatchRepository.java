@@ -0,0 +1,72 @@
+package com.busticket.repository;
+
+import com.busticket.model.Trip;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts trips with JDBC batching for bulk schedule generation, for the same reason as
+ * {@link SeatBatchRepository}. Joins the surrounding transaction.
+ */
+@Repository
+public class TripBatchRepository {
+
+    private static final String INSERT_TRIP_SQL =
+            "INSERT INTO trips (bus_id, route_id, trip_date, departure_time, arrival_time, fare, " +
+            "available_seats, trip_status, trip_code, is_active, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public void insertTrips(List<Trip> trips) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_TRIP_SQL, trips, batchSize, (ps, trip) -> {
+            ps.setLong(1, trip.getBus().getId());
+            ps.setLong(2, trip.getRoute().getId());
+            ps.setDate(3, Date.valueOf(trip.getTripDate()));
+            ps.setTime(4, Time.valueOf(trip.getDepartureTime()));
+            ps.setTime(5, Time.valueOf(trip.getArrivalTime()));
+            ps.setBigDecimal(6, trip.getFare());
+            ps.setObject(7, trip.getAvailableSeats());
+            ps.setString(8, trip.getStatus().name());
+            ps.setString(9, trip.getTripCode());
+            ps.setBoolean(10, trip.isActive());
+            ps.setTimestamp(11, now);
+            ps.setTimestamp(12, now);
+        });
+    }
+
+    // Trip id by trip code, for the given codes that already exist
+    public Map<String, Long> findIdsByTripCodes(Collection<String> tripCodes) {
+        Map<String, Long> ids = new HashMap<>();
+        if (tripCodes.isEmpty()) {
+            return ids;
+        }
+        namedParameterJdbcTemplate.query("SELECT id, trip_code FROM trips WHERE trip_code IN (:codes)",
+                new MapSqlParameterSource("codes", tripCodes),
+                rs -> {
+                    ids.put(rs.getString("trip_code"), rs.getLong("id"));
+                });
+        return ids;
+    }
+}
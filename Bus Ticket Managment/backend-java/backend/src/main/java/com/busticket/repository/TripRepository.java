@@ -1,13 +1,17 @@
 package com.busticket.repository;
 
+import com.busticket.model.Bus;
 import com.busticket.model.Trip;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -43,7 +47,7 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
     List<Trip> searchTripsByBusType(@Param("source") String source, 
                                    @Param("destination") String destination, 
                                    @Param("travelDate") LocalDate travelDate,
-                                   @Param("busType") String busType);
+                                   @Param("busType") Bus.BusType busType);
     
     @Query("SELECT t FROM Trip t WHERE t.tripDate >= :startDate AND t.tripDate <= :endDate " +
            "AND t.status = 'SCHEDULED' AND t.isActive = true")
@@ -59,14 +63,87 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
                                    @Param("startTime") LocalTime startTime,
                                    @Param("endTime") LocalTime endTime);
     
-    // Method for TripService
-    @Query("SELECT DISTINCT t FROM Trip t " +
-           "LEFT JOIN FETCH t.bus b " +
-           "LEFT JOIN FETCH t.route r " +
-           "WHERE r.source = :source AND r.destination = :destination " +
-           "AND t.tripDate = :tripDate AND t.status = 'SCHEDULED' AND t.isActive = true " +
-           "ORDER BY t.departureTime ASC")
-    List<Trip> findBySourceAndDestinationAndTripDate(@Param("source") String source, 
-                                                    @Param("destination") String destination, 
-                                                    @Param("tripDate") LocalDate tripDate);
+    // Route and date of a trip, which key its search results
+    @Query("SELECT r.source, r.destination, t.tripDate FROM Trip t JOIN t.route r WHERE t.id = :tripId")
+    List<Object[]> findSearchKeyById(@Param("tripId") Long tripId);
+    
+    @Query("SELECT t.id, t.availableSeats FROM Trip t WHERE t.id IN :tripIds")
+    List<Object[]> findAvailableSeatsByIds(@Param("tripIds") Collection<Long> tripIds);
+    
+    // Journey planner legs: trip id, source, destination, date, departure, arrival and fare of bookable trips
+    @Query("SELECT t.id, r.source, r.destination, t.tripDate, t.departureTime, t.arrivalTime, t.fare " +
+           "FROM Trip t JOIN t.route r WHERE t.tripDate >= :fromDate AND t.tripDate < :toDate " +
+           "AND t.status = 'SCHEDULED' AND t.isActive = true")
+    List<Object[]> findJourneyLegs(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+    
+    @Query("SELECT t.id, r.source, r.destination, t.tripDate, t.departureTime, t.arrivalTime, t.fare " +
+           "FROM Trip t JOIN t.route r WHERE r.source = :source AND r.destination = :destination " +
+           "AND t.tripDate = :tripDate AND t.status = 'SCHEDULED' AND t.isActive = true")
+    List<Object[]> findJourneyLegs(@Param("source") String source, @Param("destination") String destination,
+                                   @Param("tripDate") LocalDate tripDate);
+    
+    // Fare calendar: per date, the lowest fare of trips that can seat the party, the trip count,
+    // the trips that can seat the party and the seats left over all trips
+    @Query("SELECT t.tripDate, MIN(CASE WHEN t.availableSeats >= :passengers THEN t.fare END), COUNT(t.id), " +
+           "SUM(CASE WHEN t.availableSeats >= :passengers THEN 1 ELSE 0 END), SUM(COALESCE(t.availableSeats, 0)) " +
+           "FROM Trip t JOIN t.route r WHERE r.source = :source AND r.destination = :destination " +
+           "AND t.tripDate BETWEEN :fromDate AND :toDate AND t.status = 'SCHEDULED' AND t.isActive = true " +
+           "GROUP BY t.tripDate ORDER BY t.tripDate")
+    List<Object[]> findFareCalendar(@Param("source") String source, @Param("destination") String destination,
+                                    @Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate,
+                                    @Param("passengers") int passengers);
+    
+    // Packed seat state, its version and the bus capacity, read straight from the database
+    @Query("SELECT t.seatState, t.seatStateVersion, t.bus.totalSeats FROM Trip t WHERE t.id = :tripId")
+    List<Object[]> findSeatStateById(@Param("tripId") Long tripId);
+    
+    // Locking read of the same row: sees the latest committed version whatever the transaction's snapshot
+    @Query(value = "SELECT seat_state, seat_state_version FROM trips WHERE id = :tripId FOR UPDATE", nativeQuery = true)
+    List<Object[]> findSeatStateForUpdate(@Param("tripId") Long tripId);
+    
+    // Compare-and-set of the packed seat state; 0 rows means another writer got there first
+    @Modifying
+    @Query("UPDATE Trip t SET t.seatState = :seatState, t.seatStateVersion = :version + 1 " +
+           "WHERE t.id = :tripId AND COALESCE(t.seatStateVersion, 0) = :version")
+    int updateSeatState(@Param("tripId") Long tripId, 
+                        @Param("seatState") byte[] seatState, 
+                        @Param("version") long version);
+    
+    // Seat counter maintained next to every hold, expiry, confirm and cancel
+    @Modifying
+    @Query("UPDATE Trip t SET t.availableSeats = t.availableSeats - :count " +
+           "WHERE t.id = :tripId AND t.availableSeats >= :count")
+    int decrementAvailableSeats(@Param("tripId") Long tripId, @Param("count") int count);
+    
+    @Modifying
+    @Query("UPDATE Trip t SET t.availableSeats = t.availableSeats + :count " +
+           "WHERE t.id = :tripId AND t.availableSeats IS NOT NULL")
+    int incrementAvailableSeats(@Param("tripId") Long tripId, @Param("count") int count);
+    
+    // Sets the counter of a trip created without one
+    @Modifying
+    @Query("UPDATE Trip t SET t.availableSeats = :count WHERE t.id = :tripId AND t.availableSeats IS NULL")
+    int initAvailableSeats(@Param("tripId") Long tripId, @Param("count") int count);
+    
+    @Query("SELECT MIN(t.id), MAX(t.id) FROM Trip t WHERE t.tripDate >= :fromDate")
+    List<Object[]> findIdRangeFromDate(@Param("fromDate") LocalDate fromDate);
+    
+    // Recomputes the counter from the seat rows for one id range; returns the number of trips that had drifted.
+    // Booked, held and blocked (maintenance or reserved) seats are taken, like in TripSeatInventory.availableCount
+    @Modifying
+    @Query("UPDATE Trip t SET t.availableSeats = " +
+           "(SELECT b.totalSeats FROM Bus b WHERE b = t.bus) - " +
+           "(SELECT COUNT(s) FROM Seat s WHERE s.trip = t " +
+           "AND (s.isBooked = true OR (s.isHold = true AND s.holdExpiry > :now) " +
+           "OR s.status IN ('MAINTENANCE', 'RESERVED'))) " +
+           "WHERE t.tripDate >= :fromDate AND t.id BETWEEN :fromId AND :toId " +
+           "AND (t.availableSeats IS NULL OR t.availableSeats <> " +
+           "(SELECT b.totalSeats FROM Bus b WHERE b = t.bus) - " +
+           "(SELECT COUNT(s) FROM Seat s WHERE s.trip = t " +
+           "AND (s.isBooked = true OR (s.isHold = true AND s.holdExpiry > :now) " +
+           "OR s.status IN ('MAINTENANCE', 'RESERVED'))))")
+    int reconcileAvailableSeats(@Param("fromDate") LocalDate fromDate, 
+                                @Param("now") LocalDateTime now,
+                                @Param("fromId") Long fromId, 
+                                @Param("toId") Long toId);
 }
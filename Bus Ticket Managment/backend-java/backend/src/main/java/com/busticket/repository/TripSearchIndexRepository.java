@@ -0,0 +1,70 @@
+package com.busticket.repository;
+
+import com.busticket.dto.TripSearchResult;
+import com.busticket.model.TripSearchEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TripSearchIndexRepository extends JpaRepository<TripSearchEntry, Long> {
+
+    String INSERT_FROM_TRIPS_SQL =
+            "INSERT INTO trip_search_index (trip_id, source_key, destination_key, trip_date, departure_time, " +
+            "arrival_time, fare, free_seats, trip_code, trip_status, bus_id, bus_number, bus_type, operator_name, " +
+            "total_seats, amenities, route_id, source, destination, distance, duration) " +
+            "SELECT t.id, LOWER(TRIM(r.source)), LOWER(TRIM(r.destination)), t.trip_date, t.departure_time, " +
+            "t.arrival_time, t.fare, t.available_seats, t.trip_code, t.trip_status, b.id, b.bus_number, b.bus_type, " +
+            "b.operator_name, b.total_seats, b.amenities, r.id, r.source, r.destination, r.distance, r.duration " +
+            "FROM trips t JOIN routes r ON r.id = t.route_id JOIN buses b ON b.id = t.bus_id " +
+            "WHERE t.trip_status = 'SCHEDULED' AND t.is_active = true ";
+
+    @Query("SELECT new com.busticket.dto.TripSearchResult(e.tripId, e.tripCode, e.tripDate, e.departureTime, " +
+           "e.arrivalTime, e.fare, e.freeSeats, e.status, e.busId, e.busNumber, e.busType, e.operatorName, " +
+           "e.totalSeats, e.amenities, e.routeId, e.source, e.destination, e.distance, e.duration) " +
+           "FROM TripSearchEntry e WHERE e.sourceKey = :sourceKey AND e.destinationKey = :destinationKey " +
+           "AND e.tripDate = :tripDate ORDER BY e.departureTime ASC")
+    List<TripSearchResult> findSearchResults(@Param("sourceKey") String sourceKey,
+                                             @Param("destinationKey") String destinationKey,
+                                             @Param("tripDate") LocalDate tripDate);
+
+    // Rebuild of one route and date: the rows are deleted, then copied again from trips
+    @Modifying
+    @Query("DELETE FROM TripSearchEntry e WHERE e.sourceKey = :sourceKey AND e.destinationKey = :destinationKey " +
+           "AND e.tripDate = :tripDate")
+    int deleteRouteDate(@Param("sourceKey") String sourceKey,
+                        @Param("destinationKey") String destinationKey,
+                        @Param("tripDate") LocalDate tripDate);
+
+    @Modifying
+    @Query(value = INSERT_FROM_TRIPS_SQL + "AND LOWER(TRIM(r.source)) = :sourceKey " +
+                   "AND LOWER(TRIM(r.destination)) = :destinationKey AND t.trip_date = :tripDate", nativeQuery = true)
+    int insertRouteDate(@Param("sourceKey") String sourceKey,
+                        @Param("destinationKey") String destinationKey,
+                        @Param("tripDate") LocalDate tripDate);
+
+    // Full rebuild, for changes that may touch any trip and on startup
+    @Modifying
+    @Query("DELETE FROM TripSearchEntry e")
+    int deleteAllEntries();
+
+    @Modifying
+    @Query(value = INSERT_FROM_TRIPS_SQL + "AND t.trip_date >= :fromDate", nativeQuery = true)
+    int insertFromDate(@Param("fromDate") LocalDate fromDate);
+
+    @Modifying
+    @Query("DELETE FROM TripSearchEntry e WHERE e.tripDate < :beforeDate")
+    int deleteBefore(@Param("beforeDate") LocalDate beforeDate);
+
+    // Free seats copied from the trips.available_seats counter
+    @Modifying
+    @Query("UPDATE TripSearchEntry e SET e.freeSeats = " +
+           "(SELECT t.availableSeats FROM Trip t WHERE t.id = e.tripId) WHERE e.tripId IN :tripIds")
+    int refreshFreeSeats(@Param("tripIds") Collection<Long> tripIds);
+}
@@ -0,0 +1,28 @@
+package com.busticket.repository;
+
+import com.busticket.model.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    
+    List<WaitlistEntry> findByUserIdOrderByCreatedAtDesc(Long userId);
+    
+    boolean existsByUserIdAndTripIdAndStatus(Long userId, Long tripId, WaitlistEntry.WaitlistStatus status);
+    
+    // {id, tripId, userId, seatCount, seatPreference} of every waiting entry, oldest first, to rebuild the queues
+    @Query("SELECT w.id, w.trip.id, w.user.id, w.seatCount, w.seatPreference FROM WaitlistEntry w " +
+           "WHERE w.status = 'WAITING' ORDER BY w.id")
+    List<Object[]> findWaitingRefs();
+    
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'CANCELLED', w.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE w.id = :id AND w.status = 'WAITING'")
+    int cancelWaiting(@Param("id") Long id);
+}
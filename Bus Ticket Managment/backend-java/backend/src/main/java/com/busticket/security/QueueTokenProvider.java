@@ -0,0 +1,76 @@
+package com.busticket.security;
+
+import io.jsonwebtoken.*;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+
+/**
+ * Signs and checks waiting room tokens. They are JWTs like the login tokens, but signed with a key
+ * derived from the JWT secret, so one can never be passed off as the other.
+ */
+@Component
+public class QueueTokenProvider {
+    
+    public static final String TYPE_QUEUE = "queue";
+    public static final String TYPE_ADMISSION = "admission";
+    
+    private static final String AUDIENCE = "waiting-room";
+    
+    private final SecretKey signingKey;
+    
+    public QueueTokenProvider(@Value("${jwt.secret}") String jwtSecret) {
+        try {
+            byte[] key = MessageDigest.getInstance("SHA-512")
+                    .digest((AUDIENCE + ":" + jwtSecret).getBytes(StandardCharsets.UTF_8));
+            this.signingKey = Keys.hmacShaKeyFor(key);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+    
+    public String generateToken(String type, Long tripId, String username, long sequence, long validityMs) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(username)
+                .setAudience(AUDIENCE)
+                .claim("type", type)
+                .claim("tripId", tripId)
+                .claim("seq", sequence)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + validityMs))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
+                .compact();
+    }
+    
+    /**
+     * The claims of a token of the given type that was issued to the user for the trip.
+     */
+    public Claims parseToken(String token, String type, Long tripId, String username) {
+        Claims claims;
+        try {
+            claims = Jwts.parserBuilder()
+                    .setSigningKey(signingKey)
+                    .requireAudience(AUDIENCE)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        } catch (ExpiredJwtException e) {
+            throw new RuntimeException("Your place in the queue has expired, please join again");
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid queue token");
+        }
+        if (!type.equals(claims.get("type", String.class))
+                || !tripId.equals(claims.get("tripId", Long.class))
+                || !claims.getSubject().equals(username)) {
+            throw new RuntimeException("Invalid queue token");
+        }
+        return claims;
+    }
+}
@@ -1,12 +1,17 @@
 package com.busticket.service;
 
+import com.busticket.concurrency.RetryOnConflict;
+import com.busticket.concurrency.TripLockManager;
+import com.busticket.dto.BookingLegRequest;
 import com.busticket.dto.BookingRequest;
+import com.busticket.dto.JourneyBookingRequest;
 import com.busticket.model.Booking;
 import com.busticket.model.Seat;
 import com.busticket.model.BookingSeat;
 import com.busticket.model.Trip;
 import com.busticket.model.User;
 import com.busticket.repository.BookingRepository;
+import com.busticket.repository.SeatBatchRepository;
 import com.busticket.repository.SeatRepository;
 import com.busticket.repository.TripRepository;
 import com.busticket.repository.UserRepository;
@@ -15,8 +20,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -28,25 +42,40 @@ public class BookingService {
     @Autowired
     private SeatRepository seatRepository;
 
+    @Autowired
+    private SeatBatchRepository seatBatchRepository;
+
     @Autowired
     private TripRepository tripRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private TripLockManager tripLockManager;
+
+    @Autowired
+    private HoldExpiryService holdExpiryService;
+
     @Value("${app.seat-hold-timeout:300000}")
     private long seatHoldTimeoutMs;
 
     @Value("${app.max-seats-per-booking:10}")
     private int maxSeatsPerBooking;
 
+    @Value("${app.max-legs-per-booking:4}")
+    private int maxLegsPerBooking;
+
+    @RetryOnConflict("hold")
     public Booking holdSeats(BookingRequest request) {
-        if (request.getSeatNumbers() == null || request.getSeatNumbers().isEmpty()) {
-            throw new RuntimeException("At least one seat must be selected");
-        }
-        if (request.getSeatNumbers().size() > maxSeatsPerBooking) {
-            throw new RuntimeException("Cannot book more than " + maxSeatsPerBooking + " seats per booking");
-        }
+        int seatCount = requestedSeatCount(request.getSeatNumbers(), request.getSeatCount());
+        // Serialize mutations of this trip until the transaction completes. Taken before the first
+        // read, so the transaction's snapshot is not older than the writer that held the lock before
+        tripLockManager.lockForTransaction(request.getTripId());
+
         // Validate trip exists
         Trip trip = tripRepository.findById(request.getTripId())
                 .orElseThrow(() -> new RuntimeException("Trip not found"));
@@ -55,68 +84,136 @@ public class BookingService {
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Ensure seats exist for this trip (legacy trips may not have generated seats)
-        List<Seat> existingSeats = seatRepository.findByTripId(request.getTripId());
-        if (existingSeats.isEmpty()) {
-            if (trip.getBus() == null || trip.getBus().getTotalSeats() == null) {
-                throw new RuntimeException("Trip bus or totalSeats not configured");
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime holdExpiry = now.plus(java.time.Duration.ofMillis(seatHoldTimeoutMs));
+        // The booking is inserted first, so its id can be recorded on the seats it holds
+        Booking booking = createBooking(user, trip, request.getTotalAmount(), seatCount, now);
+        List<Seat> seats = holdTripSeats(request.getTripId(), trip, request.getSeatNumbers(), seatCount,
+                request.getSeatPreference(), booking.getId(), now, holdExpiry);
+
+        Booking saved = linkSeats(booking, seats);
+        holdExpiryService.track(saved.getId(), request.getTripId(), holdExpiry);
+        return saved;
+    }
+
+    /**
+     * Holds seats on every leg of a connecting journey for one booking, or on none of them. All legs
+     * are locked up front and held in trip id order; a leg that fails rolls back the legs before it.
+     */
+    @RetryOnConflict("hold")
+    public Booking holdJourney(JourneyBookingRequest request) {
+        List<BookingLegRequest> legs = request.getLegs();
+        if (legs.size() > maxLegsPerBooking) {
+            throw new RuntimeException("A journey cannot have more than " + maxLegsPerBooking + " legs");
+        }
+        int seatCount = 0;
+        Set<Long> tripIds = new LinkedHashSet<>();
+        for (BookingLegRequest leg : legs) {
+            int legSeatCount = requestedSeatCount(leg.getSeatNumbers(), leg.getSeatCount());
+            if (seatCount != 0 && legSeatCount != seatCount) {
+                throw new RuntimeException("Every leg must have the same number of seats");
             }
-            int totalSeats = trip.getBus().getTotalSeats();
-            java.util.ArrayList<Seat> newSeats = new java.util.ArrayList<>();
-            for (int i = 1; i <= totalSeats; i++) {
-                Seat seat = new Seat();
-                seat.setTrip(trip);
-                seat.setSeatNumber(i);
-                seat.setSeatType((i % 2 == 1) ? Seat.SeatType.WINDOW : Seat.SeatType.AISLE);
-                seat.setStatus(Seat.SeatStatus.AVAILABLE);
-                seat.setBooked(false);
-                seat.setHold(false);
-                seat.setHoldExpiry(null);
-                newSeats.add(seat);
+            seatCount = legSeatCount;
+            if (!tripIds.add(leg.getTripId())) {
+                throw new RuntimeException("A trip can only be booked once per journey");
             }
-            seatRepository.saveAll(newSeats);
         }
+        // Locks are taken in stripe order, so journeys sharing trips cannot deadlock each other
+        tripLockManager.lockForTransaction(tripIds);
 
-        // Load requested seats
-        List<Seat> seats = seatRepository.findByTripIdAndSeatNumberIn(request.getTripId(), request.getSeatNumbers());
-        if (seats.size() != request.getSeatNumbers().size()) {
-            throw new RuntimeException("One or more selected seats do not exist for this trip");
+        Map<Long, Trip> trips = new HashMap<>();
+        tripRepository.findAllById(tripIds).forEach(trip -> trips.put(trip.getId(), trip));
+        if (trips.size() != tripIds.size()) {
+            throw new RuntimeException("Trip not found");
         }
+        User user = userRepository.findById(request.getUserId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
 
         LocalDateTime now = LocalDateTime.now();
-        for (Seat seat : seats) {
-            if (seat.isHold() && (seat.getHoldExpiry() == null || seat.getHoldExpiry().isBefore(now))) {
-                seat.setHold(false);
-                seat.setHoldExpiry(null);
-                seat.setStatus(Seat.SeatStatus.AVAILABLE);
-                seatRepository.save(seat);
-            }
+        LocalDateTime holdExpiry = now.plus(java.time.Duration.ofMillis(seatHoldTimeoutMs));
+        // The booking belongs to the first leg's trip; the seats of every leg are linked to it
+        Booking booking = createBooking(user, trips.get(legs.get(0).getTripId()), request.getTotalAmount(), seatCount,
+                now);
+        List<Seat> seats = new ArrayList<>();
+        List<BookingLegRequest> byTripId = legs.stream()
+                .sorted(Comparator.comparing(BookingLegRequest::getTripId))
+                .toList();
+        for (BookingLegRequest leg : byTripId) {
+            seats.addAll(holdTripSeats(leg.getTripId(), trips.get(leg.getTripId()), leg.getSeatNumbers(), seatCount,
+                    leg.getSeatPreference(), booking.getId(), now, holdExpiry));
         }
 
-        for (Seat seat : seats) {
-            boolean holdActive = seat.isHold() && seat.getHoldExpiry() != null && seat.getHoldExpiry().isAfter(now);
-            if (seat.isBooked() || holdActive) {
-                throw new RuntimeException("Seat " + seat.getSeatNumber() + " is not available");
+        Booking saved = linkSeats(booking, seats);
+        for (Long tripId : tripIds) {
+            holdExpiryService.track(saved.getId(), tripId, holdExpiry);
+        }
+        return saved;
+    }
+
+    private int requestedSeatCount(List<Integer> seatNumbers, Integer requestedCount) {
+        int seatCount = seatNumbers != null && !seatNumbers.isEmpty() ? seatNumbers.size()
+                : requestedCount != null ? requestedCount : 0;
+        if (seatCount < 1) {
+            throw new RuntimeException("At least one seat must be selected");
+        }
+        if (seatCount > maxSeatsPerBooking) {
+            throw new RuntimeException("Cannot book more than " + maxSeatsPerBooking + " seats per booking");
+        }
+        return seatCount;
+    }
+
+    // Holds the seats of one trip, which must already be locked, for the booking and returns their rows
+    private List<Seat> holdTripSeats(Long tripId, Trip trip, List<Integer> requestedSeats, int seatCount,
+                                     Seat.SeatType seatPreference, Long bookingId, LocalDateTime now,
+                                     LocalDateTime holdExpiry) {
+        // Decide availability in memory; unavailable seats are rejected without touching the seats table.
+        // Without explicit seats the best available block is chosen and held in the same step
+        List<Integer> seatNumbers;
+        if (requestedSeats != null && !requestedSeats.isEmpty()) {
+            seatNumbers = requestedSeats;
+            seatInventoryService.holdSeats(tripId, seatNumbers, holdExpiry);
+        } else {
+            seatNumbers = seatInventoryService.allocateSeats(tripId, seatCount, seatPreference, holdExpiry);
+        }
+
+        // Seats without a row yet are inserted already held; the others are taken with
+        // one conditional UPDATE that acquires every one of them or none
+        List<Integer> newSeatNumbers = seatInventoryService.claimSeatRows(tripId, seatNumbers);
+        List<Integer> existingSeatNumbers = new ArrayList<>(seatNumbers);
+        existingSeatNumbers.removeAll(newSeatNumbers);
+        if (!existingSeatNumbers.isEmpty()) {
+            int held = seatRepository.holdAvailableSeats(tripId, existingSeatNumbers, bookingId, now, holdExpiry);
+            if (held != existingSeatNumbers.size()) {
+                seatInventoryService.resync(tripId);
+                throw new RuntimeException("One or more selected seats are not available");
             }
         }
+        if (!newSeatNumbers.isEmpty()) {
+            insertHeldSeats(trip, newSeatNumbers, bookingId, holdExpiry);
+        }
+        List<Seat> seats = seatRepository.findByTripIdAndSeatNumberIn(tripId, seatNumbers);
+        if (!newSeatNumbers.isEmpty()) {
+            seatInventoryService.seatRowsCreated(tripId,
+                    seats.stream().filter(seat -> newSeatNumbers.contains(seat.getSeatNumber())).toList());
+        }
+        return seats;
+    }
 
-        // Create booking
+    private Booking createBooking(User user, Trip trip, BigDecimal totalAmount, int passengerCount,
+                                  LocalDateTime now) {
         Booking booking = new Booking();
         booking.setUser(user);
         booking.setTrip(trip);
-        booking.setBookingDate(LocalDateTime.now());
-        booking.setTotalAmount(request.getTotalAmount());
+        booking.setBookingDate(now);
+        booking.setTotalAmount(totalAmount);
         booking.setStatus(Booking.BookingStatus.PENDING);
-        booking.setPassengerCount(request.getSeatNumbers().size());
+        booking.setPassengerCount(passengerCount);
+        return bookingRepository.save(booking);
+    }
 
-        // Hold seats and link to this booking
-        java.time.Duration holdDuration = java.time.Duration.ofMillis(seatHoldTimeoutMs);
+    // Link the held seats to this booking
+    private Booking linkSeats(Booking booking, List<Seat> seats) {
         for (Seat seat : seats) {
-            seat.setHold(true);
-            seat.setHoldExpiry(now.plus(holdDuration));
-            seat.setStatus(Seat.SeatStatus.HOLD);
-            seatRepository.save(seat);
-
             BookingSeat bookingSeat = new BookingSeat();
             bookingSeat.setBooking(booking);
             bookingSeat.setSeat(seat);
@@ -126,6 +223,7 @@ public class BookingService {
         return bookingRepository.save(booking);
     }
 
+    @RetryOnConflict("confirm")
     public Booking confirmBooking(Long bookingId) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
@@ -134,22 +232,27 @@ public class BookingService {
             throw new RuntimeException("Booking is not in pending status");
         }
 
-        // Confirm only seats associated with this booking
-        for (BookingSeat bs : booking.getBookingSeats()) {
-            Seat seat = bs.getSeat();
-            if (seat.isHold()) {
-                seat.setBooked(true);
-                seat.setHold(false);
-                seat.setHoldExpiry(null);
-                seat.setStatus(Seat.SeatStatus.BOOKED);
-                seatRepository.save(seat);
-            }
-        }
+        confirmHeldSeats(booking);
 
         booking.setStatus(Booking.BookingStatus.CONFIRMED);
         return bookingRepository.save(booking);
     }
 
+    // Turns the held seats of a pending booking into booked seats, all or nothing. A seat whose hold ran
+    // out and was taken over by another booking is no longer this booking's and fails the confirm.
+    // The booking and its seat refs are read before the lock, which is safe: they never change once the
+    // booking is created, and every trip row written after the lock is read with a locking read
+    public void confirmHeldSeats(Booking booking) {
+        List<Object[]> seatRefs = seatRepository.findTripSeatNumbersByBookingId(booking.getId());
+        lockBookingTrips(booking, seatRefs);
+        int confirmed = seatRepository.confirmHeldSeats(booking.getId(), LocalDateTime.now());
+        if (confirmed != seatRefs.size()) {
+            throw new RuntimeException("Seat hold has expired for one or more seats of this booking");
+        }
+        seatNumbersByTrip(seatRefs).forEach(seatInventoryService::confirmSeats);
+    }
+
+    @RetryOnConflict("cancel")
     public Booking cancelBooking(Long bookingId, String reason) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
@@ -158,21 +261,21 @@ public class BookingService {
             throw new RuntimeException("Booking is not confirmed");
         }
 
-        // Release only seats of this booking
-        for (BookingSeat bs : booking.getBookingSeats()) {
-            Seat seat = bs.getSeat();
-            if (seat.isBooked()) {
-                seat.setBooked(false);
-                seat.setStatus(Seat.SeatStatus.AVAILABLE);
-                seatRepository.save(seat);
-            }
-        }
+        releaseBookedSeats(booking);
 
         booking.setStatus(Booking.BookingStatus.CANCELLED);
         booking.setCancellationReason(reason);
         return bookingRepository.save(booking);
     }
 
+    // Frees the booked seats of a booking that is being cancelled or refunded
+    public void releaseBookedSeats(Booking booking) {
+        List<Object[]> seatRefs = seatRepository.findTripSeatNumbersByBookingId(booking.getId());
+        lockBookingTrips(booking, seatRefs);
+        seatRepository.releaseBookedSeats(booking.getId(), LocalDateTime.now());
+        seatNumbersByTrip(seatRefs).forEach(seatInventoryService::releaseBookings);
+    }
+
     public List<Booking> getUserBookings(Long userId) {
         return bookingRepository.findByUserId(userId);
     }
@@ -185,4 +288,38 @@ public class BookingService {
     public List<Booking> getAllBookings() {
         return bookingRepository.findAll();
     }
+
+    // Materializes the rows of seats that were never touched before, already held for this booking
+    private void insertHeldSeats(Trip trip, List<Integer> seatNumbers, Long bookingId, LocalDateTime holdExpiry) {
+        List<Seat> newSeats = new ArrayList<>();
+        for (Integer seatNumber : seatNumbers) {
+            Seat seat = new Seat();
+            seat.setTrip(trip);
+            seat.setSeatNumber(seatNumber);
+            seat.setSeatType(TripSeatInventory.defaultSeatType(seatNumber));
+            seat.setBooked(false);
+            seat.setStatus(Seat.SeatStatus.HOLD);
+            seat.setHold(true);
+            seat.setHoldExpiry(holdExpiry);
+            seat.setHoldBookingId(bookingId);
+            newSeats.add(seat);
+        }
+        seatBatchRepository.insertSeats(newSeats);
+    }
+
+    // The trips of a multi-leg booking are locked in one call, so in stripe order like when it was held
+    private void lockBookingTrips(Booking booking, List<Object[]> seatRefs) {
+        Set<Long> tripIds = new HashSet<>(seatNumbersByTrip(seatRefs).keySet());
+        tripIds.add(booking.getTrip().getId());
+        tripLockManager.lockForTransaction(tripIds);
+    }
+
+    // Ordered by trip id, so the trip rows are locked in the same order as when the journey was held
+    private Map<Long, List<Integer>> seatNumbersByTrip(List<Object[]> seatRefs) {
+        Map<Long, List<Integer>> byTrip = new TreeMap<>();
+        for (Object[] ref : seatRefs) {
+            byTrip.computeIfAbsent((Long) ref[0], id -> new ArrayList<>()).add((Integer) ref[1]);
+        }
+        return byTrip;
+    }
 }
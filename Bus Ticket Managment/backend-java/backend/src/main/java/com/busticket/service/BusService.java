@@ -4,6 +4,7 @@ import com.busticket.model.Bus;
 import com.busticket.repository.BusRepository;
 import com.busticket.repository.TripRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +21,9 @@ public class BusService {
     @Autowired
     private TripRepository tripRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Bus createBus(Bus bus) {
         // Validate that bus number doesn't already exist
         if (busRepository.existsByBusNumber(bus.getBusNumber())) {
@@ -55,6 +59,8 @@ public class BusService {
         bus.setAmenities(busDetails.getAmenities());
         bus.setActive(busDetails.isActive());
 
+        // Search results carry bus details
+        eventPublisher.publishEvent(TripChangedEvent.allTrips());
         return busRepository.save(bus);
     }
 
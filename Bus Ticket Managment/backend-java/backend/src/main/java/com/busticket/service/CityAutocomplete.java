@@ -0,0 +1,207 @@
+package com.busticket.service;
+
+import com.busticket.repository.RouteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Source and destination suggestions from the cities of active routes, without touching the
+ * database. Cities sit in a prefix trie where every node already holds its best matches, ranked by
+ * how many routes serve the city and how many confirmed bookings those routes have. A city matches
+ * on the start of its name and on the start of any later word in it.
+ *
+ * Route changes update the index as soon as they commit; booking counts are reloaded periodically.
+ */
+@Service
+public class CityAutocomplete {
+
+    private static final Logger log = LoggerFactory.getLogger(CityAutocomplete.class);
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    @Autowired
+    private RouteRepository routeRepository;
+
+    @Value("${app.autocomplete.max-suggestions:10}")
+    private int maxSuggestions;
+
+    private static final class RouteEntry {
+        final String source;
+        final String destination;
+        final boolean active;
+        final long bookings;
+
+        RouteEntry(String source, String destination, boolean active, long bookings) {
+            this.source = source;
+            this.destination = destination;
+            this.active = active;
+            this.bookings = bookings;
+        }
+    }
+
+    private static final class City {
+        final String name;
+        // One per active route serving the city plus its confirmed bookings
+        long score;
+
+        City(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        final List<String> top = new ArrayList<>(2);
+    }
+
+    // Guarded by this; the trie built from it is replaced whole
+    private final Map<Long, RouteEntry> routes = new HashMap<>();
+
+    private volatile Node root = new Node();
+    private volatile int cityCount;
+    private volatile LocalDateTime builtAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reloadSafely();
+    }
+
+    @Scheduled(fixedDelayString = "${app.autocomplete.refresh-ms:3600000}",
+               initialDelayString = "${app.autocomplete.refresh-ms:3600000}")
+    public void refreshPopularity() {
+        reloadSafely();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRouteChanged(RouteChangedEvent event) {
+        RouteEntry previous = routes.get(event.getRouteId());
+        long bookings = previous != null ? previous.bookings : 0;
+        routes.put(event.getRouteId(), new RouteEntry(event.getSource(), event.getDestination(), event.isActive(), bookings));
+        rebuildIndex();
+    }
+
+    /**
+     * Up to {@code limit} city names that start with the prefix, or have a word that does, most
+     * popular first. An empty prefix gives the most popular cities.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        Node node = root;
+        String key = prefix != null ? normalize(prefix) : "";
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        return List.copyOf(node.top.subList(0, Math.min(Math.max(limit, 0), node.top.size())));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cities", cityCount);
+        synchronized (this) {
+            stats.put("routes", routes.size());
+        }
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+
+    void reload() {
+        Map<Long, RouteEntry> loaded = new HashMap<>();
+        for (Object[] row : routeRepository.findRoutePopularity()) {
+            loaded.put((Long) row[0], new RouteEntry((String) row[1], (String) row[2], (Boolean) row[3], (Long) row[4]));
+        }
+        synchronized (this) {
+            routes.clear();
+            routes.putAll(loaded);
+            rebuildIndex();
+        }
+        log.info("City autocomplete loaded {} cities from {} routes", cityCount, loaded.size());
+    }
+
+    private void reloadSafely() {
+        try {
+            reload();
+        } catch (DataAccessException ex) {
+            log.warn("Could not load cities for autocomplete: {}", ex.getMessage());
+        }
+    }
+
+    // Caller holds the lock
+    private void rebuildIndex() {
+        Map<String, City> cities = new HashMap<>();
+        for (RouteEntry route : routes.values()) {
+            if (route.active) {
+                addRoute(cities, route.source, route.bookings);
+                addRoute(cities, route.destination, route.bookings);
+            }
+        }
+        List<City> ranked = new ArrayList<>(cities.values());
+        ranked.sort(Comparator.comparingLong((City city) -> city.score).reversed()
+                .thenComparing(city -> city.name));
+
+        // Inserting in rank order leaves every node's list already ranked
+        Node index = new Node();
+        for (City city : ranked) {
+            String key = normalize(city.name);
+            int start = 0;
+            while (start >= 0) {
+                insert(index, key, start, city.name);
+                int space = key.indexOf(' ', start);
+                start = space < 0 ? -1 : space + 1;
+            }
+        }
+        root = index;
+        cityCount = ranked.size();
+        builtAt = LocalDateTime.now();
+    }
+
+    private void insert(Node index, String key, int start, String name) {
+        Node node = index;
+        offer(node, name);
+        for (int i = start; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            offer(node, name);
+        }
+    }
+
+    private void offer(Node node, String name) {
+        if (node.top.size() < maxSuggestions && !node.top.contains(name)) {
+            node.top.add(name);
+        }
+    }
+
+    private static void addRoute(Map<String, City> cities, String name, long bookings) {
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        City city = cities.computeIfAbsent(normalize(name), key -> new City(name.trim()));
+        city.score += 1 + bookings;
+    }
+
+    // Case, accents and repeated spaces do not matter
+    static String normalize(String text) {
+        String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(plain.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+}
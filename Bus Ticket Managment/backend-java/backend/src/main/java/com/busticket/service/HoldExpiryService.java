@@ -0,0 +1,154 @@
+package com.busticket.service;
+
+import com.busticket.concurrency.TripLockManager;
+import com.busticket.repository.BookingRepository;
+import com.busticket.repository.SeatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expires seat holds on time instead of waiting for someone to request the same seat. Every hold is
+ * tracked on a {@link HoldTimingWheel}; on each tick the due bookings are released with one seat UPDATE
+ * and one booking UPDATE per trip, and their PENDING bookings move to EXPIRED.
+ */
+@Service
+public class HoldExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldExpiryService.class);
+
+    private static final int MAX_BOOKINGS_PER_UPDATE = 500;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private TripLockManager tripLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final HoldTimingWheel wheel;
+    private final LongAdder expiredBookings = new LongAdder();
+    private final LongAdder releasedSeats = new LongAdder();
+
+    public HoldExpiryService(@Value("${app.hold-expiry.tick-ms:1000}") long tickMs) {
+        this.wheel = new HoldTimingWheel(tickMs, 4, System.currentTimeMillis());
+    }
+
+    /**
+     * Schedules the booking's hold for expiry once the transaction that created it commits.
+     */
+    public void track(Long bookingId, Long tripId, LocalDateTime holdExpiry) {
+        long expiresAt = SeatInventoryService.toEpochMillis(holdExpiry);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            wheel.add(bookingId, tripId, expiresAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wheel.add(bookingId, tripId, expiresAt);
+            }
+        });
+    }
+
+    // Holds created before a restart are only known to the database
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingHolds() {
+        List<Object[]> deadlines;
+        try {
+            deadlines = bookingRepository.findPendingHoldDeadlines();
+        } catch (DataAccessException ex) {
+            // Never block startup on this; the holds still expire lazily when their seats are requested
+            log.warn("Could not load pending seat holds: {}", ex.getMessage());
+            return;
+        }
+        for (Object[] row : deadlines) {
+            wheel.add((Long) row[0], (Long) row[1], SeatInventoryService.toEpochMillis((LocalDateTime) row[2]));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.hold-expiry.tick-ms:1000}")
+    public void expireDueHolds() {
+        List<HoldTimingWheel.Entry> due = wheel.advance(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Long>> bookingsByTrip = new HashMap<>();
+        for (HoldTimingWheel.Entry entry : due) {
+            bookingsByTrip.computeIfAbsent(entry.getTripId(), id -> new ArrayList<>()).add(entry.getBookingId());
+        }
+        bookingsByTrip.forEach((tripId, bookingIds) -> {
+            List<Long> failed = expireBookings(tripId, bookingIds);
+            // Put them back so the next tick tries again
+            failed.forEach(bookingId -> wheel.add(bookingId, tripId, System.currentTimeMillis()));
+        });
+    }
+
+    /**
+     * Expires the given bookings of one trip in bounded transactions and returns the ids whose
+     * transaction failed.
+     */
+    public List<Long> expireBookings(Long tripId, List<Long> bookingIds) {
+        List<Long> failed = new ArrayList<>();
+        for (int from = 0; from < bookingIds.size(); from += MAX_BOOKINGS_PER_UPDATE) {
+            List<Long> chunk = bookingIds.subList(from, Math.min(from + MAX_BOOKINGS_PER_UPDATE, bookingIds.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> expireHolds(tripId, chunk));
+            } catch (RuntimeException ex) {
+                log.warn("Failed to expire holds of trip {}: {}", tripId, ex.getMessage());
+                failed.addAll(chunk);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Releases the run-out holds of the given bookings on one trip and marks the bookings expired.
+     * Bookings that were confirmed or cancelled in the meantime are left alone. Must run in a transaction.
+     */
+    void expireHolds(Long tripId, List<Long> bookingIds) {
+        tripLockManager.lockForTransaction(tripId);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Integer> seatNumbers = seatRepository.findExpiredHeldSeatNumbers(tripId, bookingIds, now);
+        if (!seatNumbers.isEmpty()) {
+            int released = seatRepository.releaseExpiredHolds(tripId, bookingIds, now);
+            seatInventoryService.releaseHolds(tripId, seatNumbers);
+            releasedSeats.add(released);
+        }
+        expiredBookings.add(bookingRepository.expirePendingBookings(bookingIds, now));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedHolds", wheel.size());
+        stats.put("expiredBookings", expiredBookings.sum());
+        stats.put("releasedSeats", releasedSeats.sum());
+        return stats;
+    }
+}
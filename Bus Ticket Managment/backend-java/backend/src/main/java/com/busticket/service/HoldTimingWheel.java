@@ -0,0 +1,114 @@
+package com.busticket.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel of seat hold deadlines. Each level has 64 slots; a slot on level n spans
+ * 64^n ticks, so adding and expiring a hold is O(1) no matter how many holds are active.
+ * Entries on upper levels cascade down as the wheel turns.
+ */
+public class HoldTimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMs;
+    private final List<Entry>[][] levels;
+    private final List<Entry> overdue = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HoldTimingWheel(long tickMs, int levelCount, long startMs) {
+        this.tickMs = tickMs;
+        this.levels = new List[levelCount][SLOTS];
+        for (List<Entry>[] level : levels) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new ArrayList<>();
+            }
+        }
+        this.currentTick = startMs / tickMs;
+    }
+
+    public synchronized void add(Long bookingId, Long tripId, long expiresAt) {
+        place(new Entry(bookingId, tripId, (expiresAt + tickMs - 1) / tickMs));
+        size++;
+    }
+
+    /**
+     * Turns the wheel up to the given time and returns every entry whose deadline has passed.
+     */
+    public synchronized List<Entry> advance(long nowMs) {
+        List<Entry> expired = new ArrayList<>(overdue);
+        overdue.clear();
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = 1; level < levels.length; level++) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(level);
+            }
+            List<Entry> slot = levels[0][(int) (currentTick & SLOT_MASK)];
+            expired.addAll(slot);
+            slot.clear();
+            // Entries cascaded down exactly onto this tick
+            expired.addAll(overdue);
+            overdue.clear();
+        }
+        size -= expired.size();
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade(int level) {
+        List<Entry> slot = levels[level][(int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+        List<Entry> entries = new ArrayList<>(slot);
+        slot.clear();
+        entries.forEach(this::place);
+    }
+
+    private void place(Entry entry) {
+        long delta = entry.expiryTick - currentTick;
+        if (delta <= 0) {
+            overdue.add(entry);
+            return;
+        }
+        int top = levels.length - 1;
+        for (int level = 0; level <= top; level++) {
+            if (level == top || delta < (1L << (SLOT_BITS * (level + 1)))) {
+                // Deadlines beyond the top level wait in its farthest slot and are re-placed when it cascades
+                long tick = level == top ? Math.min(entry.expiryTick, currentTick + (1L << (SLOT_BITS * (top + 1))) - 1)
+                        : entry.expiryTick;
+                levels[level][(int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK)].add(entry);
+                return;
+            }
+        }
+    }
+
+    public static class Entry {
+        private final Long bookingId;
+        private final Long tripId;
+        private final long expiryTick;
+
+        Entry(Long bookingId, Long tripId, long expiryTick) {
+            this.bookingId = bookingId;
+            this.tripId = tripId;
+            this.expiryTick = expiryTick;
+        }
+
+        public Long getBookingId() {
+            return bookingId;
+        }
+
+        public Long getTripId() {
+            return tripId;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.busticket.service;
+
+import com.busticket.model.IdempotencyRecord;
+import com.busticket.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the responses of requests sent with an Idempotency-Key so that retries can be answered
+ * without running them again. Recent responses are kept in a bounded LRU map in front of the
+ * idempotency_records table, which lets a retry that reaches another instance, or arrives after a
+ * restart, still find its response until the record expires. A key is claimed by inserting its row
+ * IN_PROGRESS before the request runs, so the unique key on (key, scope) lets only one instance run it.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${app.idempotency.ttl-ms:86400000}")
+    private long ttlMs;
+
+    @Value("${app.idempotency.in-progress-ttl-ms:60000}")
+    private long inProgressTtlMs;
+
+    private final Map<String, IdempotencyRecord> cache;
+
+    // Keys whose first request is still running on this instance
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+
+    public IdempotencyService(@Value("${app.idempotency.cache-size:10000}") int cacheSize) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * The stored response for the key within the given scope, or {@code null} when there is none
+     * that is still valid.
+     */
+    public IdempotencyRecord find(String requestScope, String idempotencyKey) {
+        String cacheKey = cacheKey(requestScope, idempotencyKey);
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = cache.get(cacheKey);
+        if (record == null) {
+            record = idempotencyRecordRepository.findByIdempotencyKeyAndRequestScope(idempotencyKey, requestScope)
+                    .orElse(null);
+            // A claim without a response yet has nothing to replay
+            if (record == null || record.isInProgress()) {
+                return null;
+            }
+            cache.put(cacheKey, record);
+        }
+        if (!record.getExpiresAt().isAfter(now)) {
+            cache.remove(cacheKey);
+            return null;
+        }
+        hits.increment();
+        return record;
+    }
+
+    /**
+     * Claims the key for a request about to run; false when a request with it is already running,
+     * here or on another instance.
+     */
+    public boolean begin(String requestScope, String idempotencyKey, String requestHash) {
+        if (!inFlight.add(cacheKey(requestScope, idempotencyKey))) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord claim = new IdempotencyRecord(idempotencyKey, requestScope, requestHash, 0, null, null,
+                now.plus(Duration.ofMillis(inProgressTtlMs)));
+        claim.setStatus(IdempotencyRecord.RecordStatus.IN_PROGRESS);
+        try {
+            insertClaim(claim, requestScope, idempotencyKey, now);
+            return true;
+        } catch (DataIntegrityViolationException ex) {
+            // Claimed or answered on another instance since find() looked
+            inFlight.remove(cacheKey(requestScope, idempotencyKey));
+            return false;
+        } catch (DataAccessException ex) {
+            // Without the table only this instance is guarded, as before it existed
+            log.warn("Could not claim idempotency key {}: {}", idempotencyKey, ex.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Ends the request holding the key. A claim that was not completed by {@link #save} is dropped, so
+     * the client can retry a failed request with the same key.
+     */
+    public void end(String requestScope, String idempotencyKey) {
+        try {
+            idempotencyRecordRepository.deleteInProgress(idempotencyKey, requestScope);
+        } catch (DataAccessException ex) {
+            log.warn("Could not release idempotency key {}: {}", idempotencyKey, ex.getMessage());
+        } finally {
+            inFlight.remove(cacheKey(requestScope, idempotencyKey));
+        }
+    }
+
+    public void save(String requestScope, String idempotencyKey, String requestHash, int statusCode,
+                     String contentType, String responseBody) {
+        IdempotencyRecord record = new IdempotencyRecord(idempotencyKey, requestScope, requestHash, statusCode,
+                contentType, responseBody, LocalDateTime.now().plus(Duration.ofMillis(ttlMs)));
+        cache.put(cacheKey(requestScope, idempotencyKey), record);
+        try {
+            if (idempotencyRecordRepository.complete(idempotencyKey, requestScope, statusCode, contentType,
+                    responseBody, record.getExpiresAt()) == 0) {
+                // The claim could not be written when the request began
+                idempotencyRecordRepository.save(record);
+            }
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance stored the same key first; its response is equally valid
+            log.debug("Idempotency key {} was already stored: {}", idempotencyKey, ex.getMessage());
+        } catch (DataAccessException ex) {
+            // The cached copy still covers retries that reach this instance
+            log.warn("Could not store the response for idempotency key {}: {}", idempotencyKey, ex.getMessage());
+        }
+    }
+
+    private void insertClaim(IdempotencyRecord claim, String requestScope, String idempotencyKey, LocalDateTime now) {
+        try {
+            idempotencyRecordRepository.saveAndFlush(claim);
+        } catch (DataIntegrityViolationException ex) {
+            // An expired record that was not purged yet still holds the unique key
+            if (idempotencyRecordRepository.deleteExpiredKey(idempotencyKey, requestScope, now) == 0) {
+                throw ex;
+            }
+            claim.setId(null);
+            idempotencyRecordRepository.saveAndFlush(claim);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}",
+               initialDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public int purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (cache) {
+            cache.values().removeIf(record -> !record.getExpiresAt().isAfter(now));
+        }
+        return idempotencyRecordRepository.deleteExpired(now);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedResponses", cache.size());
+        stats.put("inFlight", inFlight.size());
+        stats.put("hits", hits.sum());
+        return stats;
+    }
+
+    private static String cacheKey(String requestScope, String idempotencyKey) {
+        return requestScope + "\n" + idempotencyKey;
+    }
+}
@@ -0,0 +1,416 @@
+package com.busticket.service;
+
+import com.busticket.repository.TripRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Finds itineraries with up to two connections between cities that have no direct route. Scheduled
+ * trips of the next few days are kept in memory as a time-dependent graph: per departure city, the
+ * legs sorted by departure time, overall and per destination. A search walks first legs out of the
+ * source city and binary-searches onward legs that leave within the allowed transfer window, so it
+ * never has to join the trips table with itself.
+ *
+ * The graph is rebuilt in full on startup and once a day, when the horizon moves. In between, every
+ * {@link TripChangedEvent} reloads only the legs of the route and date it names. All updates run one
+ * at a time on a background thread; searches read immutable per-city snapshots.
+ */
+@Service
+public class JourneyPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(JourneyPlanner.class);
+
+    // Onward legs tried to the destination after each partial itinerary
+    private static final int LAST_LEG_ALTERNATIVES = 3;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Value("${app.journey-planner.horizon-days:7}")
+    private int horizonDays;
+
+    @Value("${app.journey-planner.min-transfer-minutes:30}")
+    private int minTransferMinutes;
+
+    @Value("${app.journey-planner.max-transfer-minutes:720}")
+    private int maxTransferMinutes;
+
+    @Value("${app.journey-planner.max-results:20}")
+    private int maxResults;
+
+    static final class Leg {
+        final long tripId;
+        final String source;
+        final String destination;
+        final String sourceKey;
+        final String destinationKey;
+        final LocalDate tripDate;
+        final LocalDateTime departure;
+        final LocalDateTime arrival;
+        // Minutes since the epoch, for comparisons
+        final long departs;
+        final long arrives;
+        final BigDecimal fare;
+
+        Leg(long tripId, String source, String destination, LocalDate tripDate, LocalTime departureTime,
+            LocalTime arrivalTime, BigDecimal fare) {
+            this.tripId = tripId;
+            this.source = source;
+            this.destination = destination;
+            this.sourceKey = cityKey(source);
+            this.destinationKey = cityKey(destination);
+            this.tripDate = tripDate;
+            this.departure = tripDate.atTime(departureTime);
+            // A trip that arrives "earlier" than it leaves arrives the next day
+            this.arrival = arrivalTime.isBefore(departureTime)
+                    ? tripDate.plusDays(1).atTime(arrivalTime) : tripDate.atTime(arrivalTime);
+            this.departs = minutes(departure);
+            this.arrives = minutes(arrival);
+            this.fare = fare != null ? fare : BigDecimal.ZERO;
+        }
+    }
+
+    // Everything that leaves one city, sorted by departure
+    static final class CityDepartures {
+        final Leg[] legs;
+        final Map<String, Leg[]> byDestination;
+
+        CityDepartures(List<Leg> legs) {
+            this.legs = legs.stream().sorted(BY_DEPARTURE).toArray(Leg[]::new);
+            this.byDestination = legs.stream().collect(Collectors.groupingBy(leg -> leg.destinationKey,
+                    Collectors.collectingAndThen(Collectors.toList(),
+                            list -> list.stream().sorted(BY_DEPARTURE).toArray(Leg[]::new))));
+        }
+    }
+
+    private static final Comparator<Leg> BY_DEPARTURE = Comparator.comparingLong((Leg leg) -> leg.departs)
+            .thenComparingLong(leg -> leg.tripId);
+
+    private volatile Map<String, CityDepartures> cities = new ConcurrentHashMap<>();
+
+    // Departure cities by the cities they have a direct leg to
+    private volatile Map<String, Set<String>> originsByDestination = new ConcurrentHashMap<>();
+
+    private volatile LocalDate horizonStart;
+    private volatile LocalDateTime builtAt;
+    private volatile long incrementalUpdates;
+
+    private final ExecutorService updater = Executors.newSingleThreadExecutor();
+
+    @PreDestroy
+    public void shutdown() {
+        updater.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        updater.execute(this::rebuildSafely);
+    }
+
+    // The horizon moves at midnight; past days drop out and a new one comes in
+    @Scheduled(cron = "${app.journey-planner.rebuild-cron:0 5 0 * * *}")
+    public void rebuildDaily() {
+        updater.execute(this::rebuildSafely);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        if (event.isAllTrips()) {
+            updater.execute(this::rebuildSafely);
+        } else {
+            updater.execute(() -> refreshSafely(event.getSource(), event.getDestination(), event.getTripDate()));
+        }
+    }
+
+    /**
+     * Itineraries from source to destination leaving on the given date, direct ones included, that
+     * have at least {@code passengers} free seats on every leg. Earliest arrival first, then fewer
+     * connections, then lower fare.
+     */
+    public List<Map<String, Object>> findJourneys(String source, String destination, LocalDate date,
+                                                  int passengers, int maxConnections) {
+        if (maxConnections < 0 || maxConnections > 2) {
+            throw new RuntimeException("Up to two connections are supported");
+        }
+        String from = cityKey(source);
+        String to = cityKey(destination);
+        if (from.equals(to)) {
+            throw new RuntimeException("Source and destination must be different");
+        }
+        Map<String, CityDepartures> graph = cities;
+        Map<String, Set<String>> origins = originsByDestination;
+        CityDepartures start = graph.get(from);
+        if (start == null) {
+            return List.of();
+        }
+
+        List<Leg[]> candidates = new ArrayList<>();
+        long dayStart = minutes(date.atStartOfDay());
+        long dayEnd = minutes(date.plusDays(1).atStartOfDay());
+        Set<String> lastStops = origins.getOrDefault(to, Set.of());
+        for (int i = firstDeparture(start.legs, dayStart); i < start.legs.length && start.legs[i].departs < dayEnd; i++) {
+            Leg first = start.legs[i];
+            if (first.destinationKey.equals(to)) {
+                candidates.add(new Leg[]{first});
+                continue;
+            }
+            if (maxConnections == 0) {
+                continue;
+            }
+            CityDepartures via = graph.get(first.destinationKey);
+            if (via == null) {
+                continue;
+            }
+            for (Leg last : nextLegs(via.byDestination.get(to), first.arrives)) {
+                candidates.add(new Leg[]{first, last});
+            }
+            if (maxConnections == 1) {
+                continue;
+            }
+            long latest = first.arrives + maxTransferMinutes;
+            for (int j = firstDeparture(via.legs, first.arrives + minTransferMinutes);
+                 j < via.legs.length && via.legs[j].departs <= latest; j++) {
+                Leg second = via.legs[j];
+                String stop = second.destinationKey;
+                if (stop.equals(to) || stop.equals(from) || !lastStops.contains(stop)) {
+                    continue;
+                }
+                CityDepartures secondStop = graph.get(stop);
+                if (secondStop == null) {
+                    continue;
+                }
+                for (Leg third : nextLegs(secondStop.byDestination.get(to), second.arrives)) {
+                    candidates.add(new Leg[]{first, second, third});
+                }
+            }
+        }
+
+        candidates.sort(Comparator.comparingLong((Leg[] legs) -> legs[legs.length - 1].arrives)
+                .thenComparingInt(legs -> legs.length)
+                .thenComparing(JourneyPlanner::totalFare));
+        return withSeats(candidates, Math.max(1, passengers));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, CityDepartures> graph = cities;
+        stats.put("cities", graph.size());
+        stats.put("legs", graph.values().stream().mapToInt(city -> city.legs.length).sum());
+        stats.put("horizonStart", horizonStart);
+        stats.put("horizonDays", horizonDays);
+        stats.put("builtAt", builtAt);
+        stats.put("incrementalUpdates", incrementalUpdates);
+        return stats;
+    }
+
+    void rebuild() {
+        LocalDate today = LocalDate.now();
+        List<Leg> legs = toLegs(tripRepository.findJourneyLegs(today, today.plusDays(horizonDays)));
+        Map<String, CityDepartures> graph = new ConcurrentHashMap<>();
+        Map<String, Set<String>> origins = new ConcurrentHashMap<>();
+        legs.stream().collect(Collectors.groupingBy(leg -> leg.sourceKey)).forEach((city, cityLegs) -> {
+            CityDepartures departures = new CityDepartures(cityLegs);
+            graph.put(city, departures);
+            departures.byDestination.keySet().forEach(destination ->
+                    origins.computeIfAbsent(destination, key -> ConcurrentHashMap.newKeySet()).add(city));
+        });
+        cities = graph;
+        originsByDestination = origins;
+        horizonStart = today;
+        builtAt = LocalDateTime.now();
+        log.info("Journey planner loaded {} trips from {} cities", legs.size(), graph.size());
+    }
+
+    // Replaces the legs of one route and date with what the database has now
+    void refresh(String source, String destination, LocalDate tripDate) {
+        LocalDate start = horizonStart;
+        if (start == null || tripDate.isBefore(start) || !tripDate.isBefore(start.plusDays(horizonDays))) {
+            return;
+        }
+        String from = cityKey(source);
+        String to = cityKey(destination);
+        List<Leg> legs = new ArrayList<>();
+        CityDepartures current = cities.get(from);
+        if (current != null) {
+            for (Leg leg : current.legs) {
+                if (!leg.destinationKey.equals(to) || !leg.tripDate.equals(tripDate)) {
+                    legs.add(leg);
+                }
+            }
+        }
+        legs.addAll(toLegs(tripRepository.findJourneyLegs(source, destination, tripDate)));
+
+        if (legs.isEmpty()) {
+            cities.remove(from);
+        } else {
+            cities.put(from, new CityDepartures(legs));
+        }
+        boolean connected = !legs.isEmpty() && cities.get(from).byDestination.containsKey(to);
+        if (connected) {
+            originsByDestination.computeIfAbsent(to, key -> ConcurrentHashMap.newKeySet()).add(from);
+        } else {
+            Set<String> origins = originsByDestination.get(to);
+            if (origins != null) {
+                origins.remove(from);
+            }
+        }
+        incrementalUpdates++;
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (DataAccessException ex) {
+            log.warn("Could not load the journey planner graph: {}", ex.getMessage());
+        }
+    }
+
+    private void refreshSafely(String source, String destination, LocalDate tripDate) {
+        try {
+            refresh(source, destination, tripDate);
+        } catch (DataAccessException ex) {
+            log.warn("Could not refresh journey legs {} -> {} on {}: {}", source, destination, tripDate, ex.getMessage());
+        }
+    }
+
+    // Drops itineraries with a leg that is too full, up to the result limit
+    private List<Map<String, Object>> withSeats(List<Leg[]> candidates, int passengers) {
+        List<Map<String, Object>> journeys = new ArrayList<>();
+        // Seat counts are read for a few pages of candidates at a time
+        int page = maxResults * 3;
+        for (int from = 0; from < candidates.size() && journeys.size() < maxResults; from += page) {
+            List<Leg[]> batch = candidates.subList(from, Math.min(from + page, candidates.size()));
+            Set<Long> tripIds = new LinkedHashSet<>();
+            batch.forEach(legs -> Arrays.stream(legs).forEach(leg -> tripIds.add(leg.tripId)));
+            Map<Long, Integer> seats = seatInventoryService.getAvailableSeatCounts(tripIds);
+            for (Leg[] legs : batch) {
+                if (journeys.size() == maxResults) {
+                    break;
+                }
+                if (Arrays.stream(legs).allMatch(leg -> seats.getOrDefault(leg.tripId, 0) >= passengers)) {
+                    journeys.add(toJourney(legs, seats));
+                }
+            }
+        }
+        return journeys;
+    }
+
+    private Map<String, Object> toJourney(Leg[] legs, Map<Long, Integer> seats) {
+        List<Map<String, Object>> legMaps = new ArrayList<>();
+        List<Long> transferMinutes = new ArrayList<>();
+        for (int i = 0; i < legs.length; i++) {
+            Leg leg = legs[i];
+            Map<String, Object> legMap = new LinkedHashMap<>();
+            legMap.put("tripId", leg.tripId);
+            legMap.put("source", leg.source);
+            legMap.put("destination", leg.destination);
+            legMap.put("departure", leg.departure);
+            legMap.put("arrival", leg.arrival);
+            legMap.put("fare", leg.fare);
+            legMap.put("availableSeats", seats.get(leg.tripId));
+            legMaps.add(legMap);
+            if (i > 0) {
+                transferMinutes.add(leg.departs - legs[i - 1].arrives);
+            }
+        }
+        Leg first = legs[0];
+        Leg last = legs[legs.length - 1];
+        Map<String, Object> journey = new LinkedHashMap<>();
+        journey.put("connections", legs.length - 1);
+        journey.put("departure", first.departure);
+        journey.put("arrival", last.arrival);
+        journey.put("durationMinutes", last.arrives - first.departs);
+        journey.put("transferMinutes", transferMinutes);
+        journey.put("totalFare", totalFare(legs));
+        journey.put("legs", legMaps);
+        return journey;
+    }
+
+    // The first few legs that leave within the transfer window, so a full one can be replaced by the next
+    private List<Leg> nextLegs(Leg[] legs, long arrives) {
+        if (legs == null) {
+            return List.of();
+        }
+        List<Leg> next = new ArrayList<>(LAST_LEG_ALTERNATIVES);
+        for (int i = firstDeparture(legs, arrives + minTransferMinutes);
+             i < legs.length && legs[i].departs <= arrives + maxTransferMinutes && next.size() < LAST_LEG_ALTERNATIVES; i++) {
+            next.add(legs[i]);
+        }
+        return next;
+    }
+
+    // Index of the first leg departing at or after the given minute
+    private static int firstDeparture(Leg[] legs, long notBefore) {
+        int low = 0;
+        int high = legs.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (legs[mid].departs < notBefore) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static List<Leg> toLegs(List<Object[]> rows) {
+        List<Leg> legs = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[1] == null || row[2] == null || row[4] == null || row[5] == null) {
+                continue;
+            }
+            legs.add(new Leg((Long) row[0], (String) row[1], (String) row[2], (LocalDate) row[3],
+                    (LocalTime) row[4], (LocalTime) row[5], (BigDecimal) row[6]));
+        }
+        return legs;
+    }
+
+    private static BigDecimal totalFare(Leg[] legs) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Leg leg : legs) {
+            total = total.add(leg.fare);
+        }
+        return total;
+    }
+
+    // City names compare case-insensitively, as route names do in MySQL
+    private static String cityKey(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long minutes(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
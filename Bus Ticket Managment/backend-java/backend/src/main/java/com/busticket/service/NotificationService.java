@@ -0,0 +1,24 @@
+package com.busticket.service;
+
+import com.busticket.model.Booking;
+import com.busticket.model.WaitlistEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tells users about things that happened to their bookings without them asking. There is no mail or
+ * push gateway configured yet, so messages are only logged; customers also see the change in their
+ * waitlist entries and bookings.
+ */
+@Service
+public class NotificationService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+
+    public void waitlistPromoted(WaitlistEntry entry, Booking booking) {
+        log.info("Waitlist entry {}: {} seat(s) on trip {} are held for user {} in booking {}",
+                entry.getId(), entry.getSeatCount(), entry.getTrip().getId(), entry.getUser().getId(),
+                booking.getBookingCode());
+    }
+}
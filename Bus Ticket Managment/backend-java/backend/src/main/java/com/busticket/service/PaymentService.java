@@ -1,5 +1,6 @@
 package com.busticket.service;
 
+import com.busticket.concurrency.RetryOnConflict;
 import com.busticket.dto.PaymentRequest;
 import com.busticket.model.Booking;
 import com.busticket.model.Payment;
@@ -23,6 +24,10 @@ public class PaymentService {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingService bookingService;
+
+    @RetryOnConflict("checkout")
     public Payment processPayment(PaymentRequest request) {
         // Validate booking exists
         Booking booking = bookingRepository.findById(request.getBookingId())
@@ -47,7 +52,8 @@ public class PaymentService {
         // Save payment
         Payment savedPayment = paymentRepository.save(payment);
 
-        // Update booking status to confirmed
+        // Turn the held seats into booked seats and confirm the booking
+        bookingService.confirmHeldSeats(booking);
         booking.setStatus(Booking.BookingStatus.CONFIRMED);
         bookingRepository.save(booking);
 
@@ -73,8 +79,11 @@ public class PaymentService {
         payment.setRefundDate(LocalDateTime.now());
         payment.setRefundReason(reason);
 
-        // Update booking status to cancelled
+        // Update booking status to cancelled and give its seats back
         Booking booking = payment.getBooking();
+        if (booking.getStatus() == Booking.BookingStatus.CONFIRMED) {
+            bookingService.releaseBookedSeats(booking);
+        }
         booking.setStatus(Booking.BookingStatus.CANCELLED);
         booking.setRefundAmount(payment.getAmount());
         bookingRepository.save(booking);
@@ -0,0 +1,115 @@
+package com.busticket.service;
+
+import com.busticket.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Periodically expires PENDING bookings whose seat hold ran out but were never picked up by the
+ * {@link HoldExpiryService} wheel. Pages through them by booking id, one batch per trip transaction,
+ * and stops when the run's time budget is spent so the scheduler thread is never monopolized.
+ * The bookings of a page are grouped by the trips of their seats, so every leg of a connecting
+ * journey is released; the booking itself expires with its last leg.
+ */
+@Service
+public class PendingBookingReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingBookingReaper.class);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private HoldExpiryService holdExpiryService;
+
+    @Value("${app.seat-hold-timeout:300000}")
+    private long seatHoldTimeoutMs;
+
+    @Value("${app.booking.reaper.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.booking.reaper.time-budget-ms:2000}")
+    private long timeBudgetMs;
+
+    private final LongAdder reapedBookings = new LongAdder();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    @Scheduled(fixedDelayString = "${app.booking.reaper.interval-ms:60000}",
+               initialDelayString = "${app.booking.reaper.interval-ms:60000}")
+    public int reapExpiredBookings() {
+        long start = System.currentTimeMillis();
+        long deadline = start + timeBudgetMs;
+        LocalDateTime expiryDate = LocalDateTime.now().minus(Duration.ofMillis(seatHoldTimeoutMs));
+
+        long afterId = 0L;
+        int pages = 0;
+        int reaped = 0;
+        boolean exhausted = false;
+        while (System.currentTimeMillis() < deadline) {
+            List<Object[]> page = bookingRepository.findExpiredPendingBookingRefs(expiryDate, afterId,
+                    PageRequest.ofSize(batchSize));
+            if (page.isEmpty()) {
+                exhausted = true;
+                break;
+            }
+            pages++;
+            List<Long> bookingIds = page.stream().map(ref -> (Long) ref[0]).toList();
+            Map<Long, Set<Long>> bookingsByTrip = new TreeMap<>();
+            // The booking's own trip covers bookings whose seats are gone
+            for (Object[] ref : page) {
+                bookingsByTrip.computeIfAbsent((Long) ref[1], id -> new LinkedHashSet<>()).add((Long) ref[0]);
+            }
+            for (Object[] ref : bookingRepository.findSeatTripIdsByBookingIds(bookingIds)) {
+                bookingsByTrip.computeIfAbsent((Long) ref[1], id -> new LinkedHashSet<>()).add((Long) ref[0]);
+            }
+            Set<Long> failed = new HashSet<>();
+            for (Map.Entry<Long, Set<Long>> trip : bookingsByTrip.entrySet()) {
+                // Failed bookings stay PENDING and are picked up again by the next run
+                failed.addAll(holdExpiryService.expireBookings(trip.getKey(), new ArrayList<>(trip.getValue())));
+            }
+            reaped += bookingIds.size() - failed.size();
+            afterId = (Long) page.get(page.size() - 1)[0];
+            if (page.size() < batchSize) {
+                exhausted = true;
+                break;
+            }
+        }
+        reapedBookings.add(reaped);
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("finishedAt", LocalDateTime.now());
+        run.put("pages", pages);
+        run.put("reaped", reaped);
+        run.put("durationMs", System.currentTimeMillis() - start);
+        run.put("completed", exhausted);
+        lastRun = run;
+        if (!exhausted) {
+            log.info("Pending booking reaper stopped after {} pages, time budget of {} ms spent", pages, timeBudgetMs);
+        }
+        return reaped;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("reapedBookings", reapedBookings.sum());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+}
@@ -1,5 +1,7 @@
 package com.busticket.service;
 
+import com.busticket.concurrency.ConflictMetrics;
+import com.busticket.concurrency.TripLockManager;
 import com.busticket.repository.BookingRepository;
 import com.busticket.repository.PaymentRepository;
 import com.busticket.repository.TripRepository;
@@ -36,6 +38,45 @@ public class ReportService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ConflictMetrics conflictMetrics;
+
+    @Autowired
+    private TripLockManager tripLockManager;
+
+    @Autowired
+    private HoldExpiryService holdExpiryService;
+
+    @Autowired
+    private PendingBookingReaper pendingBookingReaper;
+
+    @Autowired
+    private SeatCountReconciler seatCountReconciler;
+
+    @Autowired
+    private SeatStreamService seatStreamService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private TripSearchCache tripSearchCache;
+
+    @Autowired
+    private JourneyPlanner journeyPlanner;
+
+    @Autowired
+    private CityAutocomplete cityAutocomplete;
+
+    @Autowired
+    private TripSearchIndex tripSearchIndex;
+
     public Map<String, Object> getSalesReport(LocalDate startDate, LocalDate endDate) {
         Map<String, Object> report = new HashMap<>();
         
@@ -136,6 +177,24 @@ public class ReportService {
         return dashboard;
     }
 
+    public Map<String, Object> getBookingEngineStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("conflicts", conflictMetrics.snapshot());
+        stats.put("tripLocks", tripLockManager.snapshot());
+        stats.put("holdExpiry", holdExpiryService.getStats());
+        stats.put("reaper", pendingBookingReaper.getStats());
+        stats.put("seatCount", seatCountReconciler.getStats());
+        stats.put("seatStream", seatStreamService.getStats());
+        stats.put("idempotency", idempotencyService.getStats());
+        stats.put("waitlist", waitlistService.getStats());
+        stats.put("waitingRoom", waitingRoomService.getStats());
+        stats.put("tripSearchCache", tripSearchCache.getStats());
+        stats.put("journeyPlanner", journeyPlanner.getStats());
+        stats.put("cityAutocomplete", cityAutocomplete.getStats());
+        stats.put("tripSearchIndex", tripSearchIndex.getStats());
+        return stats;
+    }
+
     public byte[] generateReportPdf(LocalDate startDate, LocalDate endDate) {
         Map<String, Object> sales = getSalesReport(startDate, endDate);
         Map<String, Object> occupancy = getOccupancyReport(startDate, endDate);
@@ -0,0 +1,36 @@
+package com.busticket.service;
+
+/**
+ * Published when a route was created, edited or removed, with the route as it is now. A removed
+ * route is reported as inactive.
+ */
+public class RouteChangedEvent {
+
+    private final Long routeId;
+    private final String source;
+    private final String destination;
+    private final boolean active;
+
+    public RouteChangedEvent(Long routeId, String source, String destination, boolean active) {
+        this.routeId = routeId;
+        this.source = source;
+        this.destination = destination;
+        this.active = active;
+    }
+
+    public Long getRouteId() {
+        return routeId;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
@@ -4,6 +4,7 @@ import com.busticket.model.Route;
 import com.busticket.repository.RouteRepository;
 import com.busticket.repository.TripRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,12 +21,17 @@ public class RouteService {
     @Autowired
     private TripRepository tripRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Route createRoute(Route route) {
         // Validate that route doesn't already exist
         if (routeRepository.existsBySourceAndDestination(route.getSource(), route.getDestination())) {
             throw new RuntimeException("Route already exists between " + route.getSource() + " and " + route.getDestination());
         }
-        return routeRepository.save(route);
+        Route savedRoute = routeRepository.save(route);
+        publishRouteChanged(savedRoute, savedRoute.isActive());
+        return savedRoute;
     }
 
     public List<Route> getAllRoutes() {
@@ -48,6 +54,9 @@ public class RouteService {
         route.setStops(routeDetails.getStops());
         route.setActive(routeDetails.isActive());
 
+        // Search results are keyed and filled by route
+        eventPublisher.publishEvent(TripChangedEvent.allTrips());
+        publishRouteChanged(route, route.isActive());
         return routeRepository.save(route);
     }
 
@@ -61,6 +70,11 @@ public class RouteService {
         }
 
         routeRepository.delete(route);
+        publishRouteChanged(route, false);
+    }
+
+    private void publishRouteChanged(Route route, boolean active) {
+        eventPublisher.publishEvent(new RouteChangedEvent(route.getId(), route.getSource(), route.getDestination(), active));
     }
 
     public List<Route> getActiveRoutes() {
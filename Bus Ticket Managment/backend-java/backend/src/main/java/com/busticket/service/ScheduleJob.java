@@ -0,0 +1,85 @@
+package com.busticket.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one schedule generation run, updated by the chunk workers as they finish.
+ */
+public class ScheduleJob {
+
+    private static final int MAX_ERRORS = 20;
+
+    private final String id = UUID.randomUUID().toString();
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final int totalTrips;
+    private final int totalChunks;
+    private final AtomicInteger completedChunks = new AtomicInteger();
+    private final AtomicInteger createdTrips = new AtomicInteger();
+    private final AtomicInteger skippedTrips = new AtomicInteger();
+    private final AtomicInteger failedTrips = new AtomicInteger();
+    private final List<String> errors = new ArrayList<>();
+    private volatile LocalDateTime finishedAt;
+
+    public ScheduleJob(int totalTrips, int totalChunks) {
+        this.totalTrips = totalTrips;
+        this.totalChunks = totalChunks;
+        if (totalChunks == 0) {
+            finishedAt = startedAt;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    void chunkCompleted(int created, int skipped) {
+        createdTrips.addAndGet(created);
+        skippedTrips.addAndGet(skipped);
+        finishChunk();
+    }
+
+    void chunkFailed(int trips, String error) {
+        failedTrips.addAndGet(trips);
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+        finishChunk();
+    }
+
+    private void finishChunk() {
+        if (completedChunks.incrementAndGet() == totalChunks) {
+            finishedAt = LocalDateTime.now();
+        }
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> job = new LinkedHashMap<>();
+        job.put("jobId", id);
+        job.put("status", !isFinished() ? "RUNNING" : failedTrips.get() > 0 ? "COMPLETED_WITH_ERRORS" : "COMPLETED");
+        job.put("totalTrips", totalTrips);
+        job.put("createdTrips", createdTrips.get());
+        job.put("skippedTrips", skippedTrips.get());
+        job.put("failedTrips", failedTrips.get());
+        job.put("completedChunks", completedChunks.get());
+        job.put("totalChunks", totalChunks);
+        job.put("progress", totalChunks == 0 ? 100 : completedChunks.get() * 100 / totalChunks);
+        job.put("startedAt", startedAt);
+        job.put("finishedAt", finishedAt);
+        synchronized (errors) {
+            job.put("errors", new ArrayList<>(errors));
+        }
+        return job;
+    }
+}
@@ -0,0 +1,233 @@
+package com.busticket.service;
+
+import com.busticket.dto.ScheduleRequest;
+import com.busticket.model.Bus;
+import com.busticket.model.Route;
+import com.busticket.model.Seat;
+import com.busticket.model.Trip;
+import com.busticket.repository.BusRepository;
+import com.busticket.repository.RouteRepository;
+import com.busticket.repository.SeatBatchRepository;
+import com.busticket.repository.TripBatchRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Expands recurring schedules (route, bus, departure time, days of week, date range) into trips.
+ * The trips are written with JDBC batches in chunks, each chunk in its own transaction on a small
+ * worker pool, and the caller polls the returned {@link ScheduleJob} for progress. Re-running a
+ * schedule skips the trips it already created, since trip codes are derived from bus, date and time.
+ *
+ * The trip code leaves out the route: a bus makes one departure at a given date and time, so
+ * the route follows from the other three. Two schedules in one request that put the same bus on
+ * different routes at the same time are rejected. A chunk that loses the race for a trip code to
+ * an overlapping job is run again without the codes that now exist.
+ */
+@Service
+public class ScheduleService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleService.class);
+
+    private static final DateTimeFormatter CODE_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter CODE_TIME = DateTimeFormatter.ofPattern("HHmm");
+    private static final int MAX_RETAINED_JOBS = 100;
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    @Autowired
+    private RouteRepository routeRepository;
+
+    @Autowired
+    private BusRepository busRepository;
+
+    @Autowired
+    private TripBatchRepository tripBatchRepository;
+
+    @Autowired
+    private SeatBatchRepository seatBatchRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.schedule.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.schedule.max-days:366}")
+    private int maxDays;
+
+    @Value("${app.seat-materialization:lazy}")
+    private String seatMaterialization;
+
+    private final ExecutorService executor;
+
+    private final Map<String, ScheduleJob> jobs = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ScheduleJob> eldest) {
+                    return size() > MAX_RETAINED_JOBS && eldest.getValue().isFinished();
+                }
+            });
+
+    public ScheduleService(@Value("${app.schedule.parallelism:4}") int parallelism) {
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public ScheduleJob generateTrips(List<ScheduleRequest> schedules) {
+        Map<Long, Route> routes = routeRepository.findAllById(
+                schedules.stream().map(ScheduleRequest::getRouteId).distinct().toList())
+                .stream().collect(Collectors.toMap(Route::getId, Function.identity()));
+        Map<Long, Bus> buses = busRepository.findAllById(
+                schedules.stream().map(ScheduleRequest::getBusId).distinct().toList())
+                .stream().collect(Collectors.toMap(Bus::getId, Function.identity()));
+
+        List<Trip> trips = expandSchedules(schedules, routes, buses);
+        List<List<Trip>> chunks = new ArrayList<>();
+        for (int from = 0; from < trips.size(); from += chunkSize) {
+            chunks.add(trips.subList(from, Math.min(from + chunkSize, trips.size())));
+        }
+
+        ScheduleJob job = new ScheduleJob(trips.size(), chunks.size());
+        jobs.put(job.getId(), job);
+        for (List<Trip> chunk : chunks) {
+            executor.execute(() -> insertChunk(job, chunk));
+        }
+        return job;
+    }
+
+    public ScheduleJob getJob(String jobId) {
+        ScheduleJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Schedule job not found");
+        }
+        return job;
+    }
+
+    /**
+     * One trip per matching day of every schedule, de-duplicated by trip code.
+     */
+    List<Trip> expandSchedules(List<ScheduleRequest> schedules, Map<Long, Route> routes, Map<Long, Bus> buses) {
+        Map<String, Trip> trips = new LinkedHashMap<>();
+        for (ScheduleRequest schedule : schedules) {
+            Route route = routes.get(schedule.getRouteId());
+            if (route == null) {
+                throw new RuntimeException("Route not found: " + schedule.getRouteId());
+            }
+            Bus bus = buses.get(schedule.getBusId());
+            if (bus == null) {
+                throw new RuntimeException("Bus not found: " + schedule.getBusId());
+            }
+            if (schedule.getEndDate().isBefore(schedule.getStartDate())) {
+                throw new RuntimeException("End date must not be before start date");
+            }
+            if (ChronoUnit.DAYS.between(schedule.getStartDate(), schedule.getEndDate()) >= maxDays) {
+                throw new RuntimeException("A schedule cannot span more than " + maxDays + " days");
+            }
+            for (LocalDate date = schedule.getStartDate(); !date.isAfter(schedule.getEndDate()); date = date.plusDays(1)) {
+                if (!schedule.getDaysOfWeek().contains(date.getDayOfWeek())) {
+                    continue;
+                }
+                Trip trip = new Trip(bus, route, date, schedule.getDepartureTime(), schedule.getArrivalTime(), schedule.getFare());
+                trip.setAvailableSeats(bus.getTotalSeats());
+                trip.setTripCode("TRIP-" + date.format(CODE_DATE) + "-" + schedule.getDepartureTime().format(CODE_TIME)
+                        + "-B" + bus.getId());
+                Trip scheduled = trips.putIfAbsent(trip.getTripCode(), trip);
+                if (scheduled != null && !scheduled.getRoute().getId().equals(route.getId())) {
+                    throw new RuntimeException("Bus " + bus.getId() + " is scheduled on two routes at "
+                            + date + " " + schedule.getDepartureTime());
+                }
+            }
+        }
+        return new ArrayList<>(trips.values());
+    }
+
+    void insertChunk(ScheduleJob job, List<Trip> chunk) {
+        try {
+            List<Trip> created = insertNewTrips(chunk);
+            publishTripChanged(created);
+            job.chunkCompleted(created.size(), chunk.size() - created.size());
+        } catch (RuntimeException ex) {
+            log.warn("Schedule job {} failed to insert a chunk of {} trips: {}", job.getId(), chunk.size(), ex.getMessage());
+            job.chunkFailed(chunk.size(), ex.getMessage());
+        }
+    }
+
+    // Another job may insert some of the same codes between the check and the insert; the chunk
+    // is rolled back and checked again, which then skips them
+    private List<Trip> insertNewTrips(List<Trip> chunk) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Map<String, Long> existing = tripBatchRepository.findIdsByTripCodes(
+                            chunk.stream().map(Trip::getTripCode).toList());
+                    List<Trip> newTrips = chunk.stream()
+                            .filter(trip -> !existing.containsKey(trip.getTripCode()))
+                            .toList();
+                    tripBatchRepository.insertTrips(newTrips);
+                    if ("eager".equalsIgnoreCase(seatMaterialization) && !newTrips.isEmpty()) {
+                        insertSeats(newTrips);
+                    }
+                    return newTrips;
+                });
+            } catch (DuplicateKeyException ex) {
+                if (attempt >= MAX_CHUNK_ATTEMPTS) {
+                    throw ex;
+                }
+                log.debug("Trip codes of a chunk were inserted concurrently, checking again: {}", ex.getMessage());
+            }
+        }
+    }
+
+    // One event per route and date that gained trips
+    private void publishTripChanged(List<Trip> trips) {
+        Map<String, TripChangedEvent> events = new LinkedHashMap<>();
+        for (Trip trip : trips) {
+            Route route = trip.getRoute();
+            events.putIfAbsent(route.getId() + "|" + trip.getTripDate(),
+                    new TripChangedEvent(route.getSource(), route.getDestination(), trip.getTripDate()));
+        }
+        events.values().forEach(eventPublisher::publishEvent);
+    }
+
+    private void insertSeats(List<Trip> trips) {
+        Map<String, Long> ids = tripBatchRepository.findIdsByTripCodes(trips.stream().map(Trip::getTripCode).toList());
+        List<Seat> seats = new ArrayList<>();
+        for (Trip trip : trips) {
+            Trip saved = new Trip();
+            saved.setId(ids.get(trip.getTripCode()));
+            int totalSeats = trip.getBus().getTotalSeats() != null ? trip.getBus().getTotalSeats() : 0;
+            for (int i = 1; i <= totalSeats; i++) {
+                Seat seat = new Seat(saved, i, TripSeatInventory.defaultSeatType(i));
+                seat.setStatus(Seat.SeatStatus.AVAILABLE);
+                seats.add(seat);
+            }
+        }
+        seatBatchRepository.insertSeats(seats);
+    }
+}
@@ -0,0 +1,378 @@
+package com.busticket.service;
+
+import com.busticket.model.Seat;
+import com.busticket.model.Trip;
+import com.busticket.repository.SeatRepository;
+import com.busticket.repository.TripRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-trip in-memory seat inventory that answers availability without touching the seats table.
+ * Holds and releases are applied eagerly, under the trip lock, and undone on rollback; confirms are
+ * applied after commit. A release is applied at once so that the trip's waitlist can take the seats
+ * right after it commits, before the trip lock is let go (see {@link SeatsReleasedEvent}); other holds
+ * on the trip wait for the lock.
+ * Every change is also written to the trip's packed seat state (see {@link SeatStateCodec}), from which
+ * the inventory is loaded and counts are answered with a single primary-key read, and to the trip's
+ * availableSeats counter, which {@link SeatCountReconciler} periodically corrects. Committed changes
+ * are published as {@link SeatStateChangedEvent}s.
+ *
+ * Each instance keeps its own inventories, so another instance may have changed a trip since it was
+ * loaded. An inventory remembers the seat state version it matches; a hold or a write that finds a
+ * newer version drops it and fails with a conflict, and the retry loads the trip again.
+ */
+@Service
+@Transactional
+public class SeatInventoryService {
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SeatCountReconciler seatCountReconciler;
+
+    private final Map<Long, TripSeatInventory> inventories = new ConcurrentHashMap<>();
+
+    // Trips whose packed seat state disagreed with the seat rows and must be rebuilt from them
+    private final Set<Long> staleSeatStates = ConcurrentHashMap.newKeySet();
+
+    public TripSeatInventory getInventory(Long tripId) {
+        TripSeatInventory inventory = inventories.get(tripId);
+        if (inventory != null) {
+            return inventory;
+        }
+        TripSeatInventory loaded = load(tripId);
+        TripSeatInventory existing = inventories.putIfAbsent(tripId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    public void evict(Long tripId) {
+        inventories.remove(tripId);
+    }
+
+    /**
+     * Drops the cached inventory after the seat rows turned out to disagree with it; the next load
+     * reads the rows and the next change rewrites the packed seat state from them.
+     */
+    public void resync(Long tripId) {
+        staleSeatStates.add(tripId);
+        inventories.remove(tripId);
+    }
+
+    public void holdSeats(Long tripId, List<Integer> seatNumbers, LocalDateTime holdExpiry) {
+        TripSeatInventory inventory = currentInventory(tripId);
+        if (!inventory.contains(seatNumbers)) {
+            throw new RuntimeException("One or more selected seats do not exist for this trip");
+        }
+        Integer unavailable = inventory.tryHold(seatNumbers, toEpochMillis(holdExpiry), System.currentTimeMillis());
+        if (unavailable != null) {
+            throw new RuntimeException("Seat " + unavailable + " is not available");
+        }
+        recordHold(inventory, seatNumbers);
+    }
+
+    /**
+     * Chooses and holds {@code count} seats of the trip in one step, see {@link TripSeatInventory#allocate}.
+     */
+    public List<Integer> allocateSeats(Long tripId, int count, Seat.SeatType preference, LocalDateTime holdExpiry) {
+        TripSeatInventory inventory = currentInventory(tripId);
+        List<Integer> seatNumbers = inventory.allocate(count, preference, toEpochMillis(holdExpiry),
+                System.currentTimeMillis());
+        if (seatNumbers.isEmpty()) {
+            throw new RuntimeException("Not enough seats available for " + count + " passengers");
+        }
+        recordHold(inventory, seatNumbers);
+        return seatNumbers;
+    }
+
+    /**
+     * Returns the requested seats that have no row yet; the caller has to insert them. Seats are
+     * handed out to one transaction only, unless it rolls back.
+     */
+    public List<Integer> claimSeatRows(Long tripId, List<Integer> seatNumbers) {
+        TripSeatInventory inventory = getInventory(tripId);
+        List<Integer> claimed = inventory.claimSeatRows(seatNumbers);
+        if (!claimed.isEmpty()) {
+            onRollback(() -> inventory.unclaimSeatRows(claimed));
+        }
+        return claimed;
+    }
+
+    // Records the ids of freshly inserted seat rows once they are visible to everyone
+    public void seatRowsCreated(Long tripId, List<Seat> seats) {
+        TripSeatInventory inventory = getInventory(tripId);
+        afterCommit(() -> seats.forEach(inventory::apply));
+    }
+
+    public void confirmSeats(Long tripId, Collection<Integer> seatNumbers) {
+        TripSeatInventory inventory = getInventory(tripId);
+        writeSeatState(inventory, seatNumbers, SeatStateCodec.BOOKED);
+        afterCommit(() -> {
+            inventory.confirm(seatNumbers);
+            publishChange(tripId, seatNumbers, SeatStateCodec.BOOKED);
+        });
+    }
+
+    public void releaseHolds(Long tripId, Collection<Integer> seatNumbers) {
+        TripSeatInventory inventory = getInventory(tripId);
+        writeSeatState(inventory, seatNumbers, SeatStateCodec.AVAILABLE);
+        tripRepository.incrementAvailableSeats(tripId, seatNumbers.size());
+        onRollback(inventory.snapshot(seatNumbers));
+        inventory.releaseHolds(seatNumbers);
+        recordRelease(tripId, seatNumbers);
+    }
+
+    public void releaseBookings(Long tripId, Collection<Integer> seatNumbers) {
+        TripSeatInventory inventory = getInventory(tripId);
+        writeSeatState(inventory, seatNumbers, SeatStateCodec.AVAILABLE);
+        tripRepository.incrementAvailableSeats(tripId, seatNumbers.size());
+        onRollback(inventory.snapshot(seatNumbers));
+        inventory.releaseBookings(seatNumbers);
+        recordRelease(tripId, seatNumbers);
+    }
+
+    public Map<String, Object> getSeatMap(Long tripId) {
+        TripSeatInventory inventory = getInventory(tripId);
+        long now = System.currentTimeMillis();
+
+        Map<String, Object> seatInfo = new HashMap<>();
+        seatInfo.put("tripId", tripId);
+        seatInfo.put("totalSeats", inventory.getCapacity());
+        seatInfo.put("availableSeats", (long) inventory.availableCount(now));
+        seatInfo.put("bookedSeats", (long) inventory.bookedCount());
+        seatInfo.put("heldSeats", (long) inventory.heldCount(now));
+        seatInfo.put("seats", inventory.seatMap(now));
+        return seatInfo;
+    }
+
+    public long getAvailableSeatCount(Long tripId) {
+        Integer packed = countPackedSeats(tripId, SeatStateCodec.AVAILABLE);
+        return packed != null ? packed : getInventory(tripId).availableCount(System.currentTimeMillis());
+    }
+
+    /**
+     * Available seats of several trips at once: from the inventory of the trips that are cached here,
+     * and from the trips.available_seats counter, in one query, for the others.
+     */
+    public Map<Long, Integer> getAvailableSeatCounts(Collection<Long> tripIds) {
+        Map<Long, Integer> counts = getCachedSeatCounts(tripIds);
+        List<Long> uncached = tripIds.stream().filter(tripId -> !counts.containsKey(tripId)).toList();
+        if (!uncached.isEmpty()) {
+            for (Object[] row : tripRepository.findAvailableSeatsByIds(uncached)) {
+                if (row[1] != null) {
+                    counts.put((Long) row[0], (Integer) row[1]);
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Available seats of the given trips whose inventory is cached here; the others are left out.
+     */
+    public Map<Long, Integer> getCachedSeatCounts(Collection<Long> tripIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (Long tripId : tripIds) {
+            TripSeatInventory inventory = inventories.get(tripId);
+            if (inventory != null) {
+                counts.put(tripId, inventory.availableCount(now));
+            }
+        }
+        return counts;
+    }
+
+    public long getBookedSeatCount(Long tripId) {
+        Integer packed = countPackedSeats(tripId, SeatStateCodec.BOOKED);
+        return packed != null ? packed : getInventory(tripId).bookedCount();
+    }
+
+    public long getHeldSeatCount(Long tripId) {
+        Integer packed = countPackedSeats(tripId, SeatStateCodec.HELD);
+        return packed != null ? packed : getInventory(tripId).heldCount(System.currentTimeMillis());
+    }
+
+    // Popcount over the packed seat state for trips that are not cached; null when there is none to use
+    private Integer countPackedSeats(Long tripId, int seatState) {
+        if (inventories.containsKey(tripId) || staleSeatStates.contains(tripId)) {
+            return null;
+        }
+        List<Object[]> rows = tripRepository.findSeatStateById(tripId);
+        if (rows.isEmpty() || rows.get(0)[0] == null || rows.get(0)[2] == null) {
+            return null;
+        }
+        return SeatStateCodec.count((byte[]) rows.get(0)[0], (Integer) rows.get(0)[2], seatState);
+    }
+
+    /**
+     * Sets the given seats to one state in the trip's packed seat state, compare-and-set on its version.
+     * The first write of a trip, or of a stale one, packs the whole inventory. The row is read with a
+     * locking read, so the version is the latest committed one even when the transaction's snapshot
+     * was taken before the trip lock was granted, and writers on other instances queue on the row.
+     */
+    private void writeSeatState(TripSeatInventory inventory, Collection<Integer> seatNumbers, int seatState) {
+        Long tripId = inventory.getTripId();
+        List<Object[]> rows = tripRepository.findSeatStateForUpdate(tripId);
+        if (rows.isEmpty()) {
+            return;
+        }
+        byte[] current = (byte[]) rows.get(0)[0];
+        long version = rows.get(0)[1] != null ? ((Number) rows.get(0)[1]).longValue() : 0L;
+        checkVersion(inventory, current, version);
+        boolean stale = staleSeatStates.remove(tripId);
+        if (stale) {
+            onRollback(() -> staleSeatStates.add(tripId));
+        }
+        byte[] state = current == null || stale
+                ? inventory.toSeatState(System.currentTimeMillis())
+                : Arrays.copyOf(current, Math.max(current.length, SeatStateCodec.empty(inventory.getCapacity()).length));
+        for (Integer seatNumber : seatNumbers) {
+            if (seatNumber != null && seatNumber >= 1 && seatNumber <= inventory.getCapacity()) {
+                SeatStateCodec.set(state, seatNumber, seatState);
+            }
+        }
+        if (tripRepository.updateSeatState(tripId, state, version) == 0) {
+            inventories.remove(tripId, inventory);
+            throw new ObjectOptimisticLockingFailureException(Trip.class, tripId);
+        }
+        inventory.setSeatStateVersion(version + 1);
+        onRollback(() -> inventory.setSeatStateVersion(version));
+    }
+
+    // Holds are decided on the cached inventory, so it has to have seen the latest seat state
+    private TripSeatInventory currentInventory(Long tripId) {
+        TripSeatInventory inventory = getInventory(tripId);
+        List<Object[]> rows = tripRepository.findSeatStateForUpdate(tripId);
+        if (!rows.isEmpty()) {
+            checkVersion(inventory, (byte[]) rows.get(0)[0],
+                    rows.get(0)[1] != null ? ((Number) rows.get(0)[1]).longValue() : 0L);
+        }
+        return inventory;
+    }
+
+    /**
+     * Drops an inventory that another instance has written past. It is not reloaded in place: this
+     * transaction may not see the newer state yet, while the retry runs in a fresh one. A seat state
+     * that was never written, or is rebuilt from the seat rows, has no version to compare.
+     */
+    private void checkVersion(TripSeatInventory inventory, byte[] current, long version) {
+        Long tripId = inventory.getTripId();
+        if (current != null && !staleSeatStates.contains(tripId) && version != inventory.getSeatStateVersion()) {
+            inventories.remove(tripId, inventory);
+            throw new ObjectOptimisticLockingFailureException(Trip.class, tripId);
+        }
+    }
+
+    private TripSeatInventory load(Long tripId) {
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new RuntimeException("Trip not found"));
+        int capacity = trip.getBus() != null && trip.getBus().getTotalSeats() != null
+                ? trip.getBus().getTotalSeats() : 0;
+
+        if (trip.getSeatState() != null && !staleSeatStates.contains(tripId)) {
+            // Occupancy from the packed column; the seat rows only contribute ids and hold deadlines
+            List<Object[]> seatRefs = seatRepository.findSeatRefsByTripId(tripId);
+            for (Object[] ref : seatRefs) {
+                capacity = Math.max(capacity, (Integer) ref[1]);
+            }
+            TripSeatInventory inventory = new TripSeatInventory(tripId, capacity);
+            inventory.applySeatState(trip.getSeatState());
+            inventory.setSeatStateVersion(trip.getSeatStateVersion() != null ? trip.getSeatStateVersion() : 0L);
+            for (Object[] ref : seatRefs) {
+                inventory.applySeatRow((Long) ref[0], (Integer) ref[1], (LocalDateTime) ref[2]);
+            }
+            return inventory;
+        }
+
+        List<Seat> seats = seatRepository.findByTripId(tripId);
+        for (Seat seat : seats) {
+            capacity = Math.max(capacity, seat.getSeatNumber());
+        }
+        TripSeatInventory inventory = new TripSeatInventory(tripId, capacity);
+        seats.forEach(inventory::apply);
+        return inventory;
+    }
+
+    private void recordHold(TripSeatInventory inventory, List<Integer> seatNumbers) {
+        Long tripId = inventory.getTripId();
+        onRollback(() -> inventory.releaseHolds(seatNumbers));
+        writeSeatState(inventory, seatNumbers, SeatStateCodec.HELD);
+        // Holds that ran out but were not released yet were already counted when they were taken
+        int lapsed = (int) seatRepository.countLapsedHolds(tripId, seatNumbers, LocalDateTime.now());
+        int taken = seatNumbers.size() - lapsed;
+        if (taken > 0 && tripRepository.decrementAvailableSeats(tripId, taken) == 0) {
+            // The counter had drifted below the seats still free; recount once this hold is visible
+            afterCommit(() -> seatCountReconciler.reconcileTrip(tripId));
+        }
+        afterCommit(() -> publishChange(tripId, seatNumbers, SeatStateCodec.HELD));
+    }
+
+    // Seats taken by the waitlist below are published as held after these are published as available
+    private void recordRelease(Long tripId, Collection<Integer> seatNumbers) {
+        afterCommit(() -> publishChange(tripId, seatNumbers, SeatStateCodec.AVAILABLE));
+        eventPublisher.publishEvent(new SeatsReleasedEvent(tripId, seatNumbers));
+    }
+
+    private void publishChange(Long tripId, Collection<Integer> seatNumbers, int seatState) {
+        eventPublisher.publishEvent(new SeatStateChangedEvent(tripId, seatNumbers, seatState));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void onRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    undo.run();
+                }
+            }
+        });
+    }
+
+    static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
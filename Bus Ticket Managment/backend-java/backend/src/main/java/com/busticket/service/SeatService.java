@@ -7,7 +7,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,28 +17,11 @@ public class SeatService {
     @Autowired
     private SeatRepository seatRepository;
 
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
     public Map<String, Object> getTripSeats(Long tripId) {
-        List<Seat> seats = seatRepository.findByTripId(tripId);
-        
-        Map<String, Object> seatInfo = new HashMap<>();
-        seatInfo.put("tripId", tripId);
-        seatInfo.put("totalSeats", seats.size());
-        
-        long availableSeats = seats.stream()
-                .filter(seat -> !seat.isBooked() && (!seat.isHold() || 
-                        (seat.getHoldExpiry() != null && seat.getHoldExpiry().isBefore(LocalDateTime.now()))))
-                .count();
-        
-        long bookedSeats = seats.stream().filter(Seat::isBooked).count();
-        long heldSeats = seats.stream().filter(seat -> seat.isHold() && 
-                (seat.getHoldExpiry() == null || seat.getHoldExpiry().isAfter(LocalDateTime.now()))).count();
-        
-        seatInfo.put("availableSeats", availableSeats);
-        seatInfo.put("bookedSeats", bookedSeats);
-        seatInfo.put("heldSeats", heldSeats);
-        seatInfo.put("seats", seats);
-        
-        return seatInfo;
+        return seatInventoryService.getSeatMap(tripId);
     }
 
     public List<Seat> getAvailableSeats(Long tripId) {
@@ -55,14 +37,14 @@ public class SeatService {
     }
 
     public long getAvailableSeatCount(Long tripId) {
-        return seatRepository.countAvailableSeatsByTripId(tripId, LocalDateTime.now());
+        return seatInventoryService.getAvailableSeatCount(tripId);
     }
 
     public long getBookedSeatCount(Long tripId) {
-        return seatRepository.countBookedSeatsByTripId(tripId);
+        return seatInventoryService.getBookedSeatCount(tripId);
     }
 
     public long getHeldSeatCount(Long tripId) {
-        return seatRepository.countHeldSeatsByTripId(tripId, LocalDateTime.now());
+        return seatInventoryService.getHeldSeatCount(tripId);
     }
 }
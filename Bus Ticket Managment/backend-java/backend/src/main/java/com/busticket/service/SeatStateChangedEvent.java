@@ -0,0 +1,33 @@
+package com.busticket.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published once a transaction that changed seats of a trip has committed.
+ */
+public class SeatStateChangedEvent {
+
+    private final Long tripId;
+    private final List<Integer> seatNumbers;
+    private final int seatState;
+
+    public SeatStateChangedEvent(Long tripId, Collection<Integer> seatNumbers, int seatState) {
+        this.tripId = tripId;
+        this.seatNumbers = List.copyOf(seatNumbers);
+        this.seatState = seatState;
+    }
+
+    public Long getTripId() {
+        return tripId;
+    }
+
+    public List<Integer> getSeatNumbers() {
+        return seatNumbers;
+    }
+
+    // One of the SeatStateCodec states
+    public int getSeatState() {
+        return seatState;
+    }
+}
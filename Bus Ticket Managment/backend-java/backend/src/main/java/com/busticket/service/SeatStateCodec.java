@@ -0,0 +1,58 @@
+package com.busticket.service;
+
+/**
+ * Packs a trip's seat occupancy into 2 bits per seat, four seats per byte, for the trips.seat_state
+ * column. Seat N occupies bits 2(N-1) and 2(N-1)+1 counted from the least significant bit of byte 0.
+ */
+public final class SeatStateCodec {
+
+    public static final int AVAILABLE = 0;
+    public static final int HELD = 1;
+    public static final int BOOKED = 2;
+    public static final int BLOCKED = 3;
+
+    private SeatStateCodec() {
+    }
+
+    public static byte[] empty(int capacity) {
+        return new byte[(capacity + 3) / 4];
+    }
+
+    public static int capacity(byte[] state) {
+        return state.length * 4;
+    }
+
+    public static int get(byte[] state, int seatNumber) {
+        int bit = (seatNumber - 1) * 2;
+        return (state[bit >>> 3] >>> (bit & 7)) & 3;
+    }
+
+    public static void set(byte[] state, int seatNumber, int seatState) {
+        int bit = (seatNumber - 1) * 2;
+        int cleared = state[bit >>> 3] & ~(3 << (bit & 7));
+        state[bit >>> 3] = (byte) (cleared | ((seatState & 3) << (bit & 7)));
+    }
+
+    /**
+     * Number of the first {@code capacity} seats that are in the given state, one popcount per 32 seats.
+     */
+    public static int count(byte[] state, int capacity, int seatState) {
+        // A seat matches when both bits of its pair equal the pattern
+        long lowPattern = (seatState & 1) != 0 ? -1L : 0L;
+        long highPattern = (seatState & 2) != 0 ? -1L : 0L;
+        int bits = Math.min(capacity, capacity(state)) * 2;
+        int count = 0;
+        for (int offset = 0; offset * 8 < bits; offset += 8) {
+            long word = 0L;
+            for (int i = 0; i < 8 && offset + i < state.length; i++) {
+                word |= (state[offset + i] & 0xFFL) << (i * 8);
+            }
+            int wordBits = Math.min(64, bits - offset * 8);
+            long valid = wordBits == 64 ? -1L : (1L << wordBits) - 1;
+            long low = ~(word ^ lowPattern);
+            long high = ~((word >>> 1) ^ highPattern);
+            count += Long.bitCount(low & high & valid & 0x5555555555555555L);
+        }
+        return count;
+    }
+}
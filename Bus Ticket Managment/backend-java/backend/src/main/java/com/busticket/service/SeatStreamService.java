@@ -0,0 +1,231 @@
+package com.busticket.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes seat map changes to subscribers over Server-Sent Events. A subscriber first gets a
+ * "snapshot" event with the held, booked and blocked seats, then "seats" events carrying only the
+ * seats that changed, coalesced per trip over a short window so a burst of holds on a popular trip
+ * becomes one small message. Subscribers are capped in total and per trip, and every stream times
+ * out so that abandoned ones are dropped; browsers reconnect by themselves.
+ *
+ * A subscriber is registered before its snapshot is read, so a change committed meanwhile is
+ * either in the snapshot or in a later delta. Deltas flushed before the snapshot is sent are held
+ * back and sent right after it.
+ */
+@Service
+public class SeatStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatStreamService.class);
+
+    private static final String[] STATE_NAMES = {"available", "held", "booked", "blocked"};
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Value("${app.seat-stream.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    @Value("${app.seat-stream.max-subscribers-per-trip:500}")
+    private int maxSubscribersPerTrip;
+
+    @Value("${app.seat-stream.timeout-ms:300000}")
+    private long timeoutMs;
+
+    @Value("${app.seat-stream.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    private final Map<Long, TripStream> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final LongAdder sentEvents = new LongAdder();
+    private final LongAdder coalescedChanges = new LongAdder();
+    private volatile long lastHeartbeat = System.currentTimeMillis();
+
+    private static class TripStream {
+        final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        // Latest state per changed seat since the last flush
+        final Map<Integer, Integer> pending = new HashMap<>();
+        final AtomicLong sequence = new AtomicLong();
+        // Subscribers whose snapshot is not sent yet, with the deltas flushed meanwhile
+        final Map<SseEmitter, List<Map<String, Object>>> joining = new HashMap<>();
+    }
+
+    public SseEmitter subscribe(Long tripId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new RuntimeException("Too many live seat map subscribers, please try again later");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        TripStream stream;
+        long seq;
+        while (true) {
+            stream = streams.computeIfAbsent(tripId, id -> new TripStream());
+            synchronized (stream) {
+                if (streams.get(tripId) != stream) {
+                    continue; // emptied and dropped by the last subscriber leaving
+                }
+                if (stream.emitters.size() >= maxSubscribersPerTrip) {
+                    subscribers.decrementAndGet();
+                    throw new RuntimeException("Too many live seat map subscribers for this trip, please try again later");
+                }
+                stream.emitters.add(emitter);
+                stream.joining.put(emitter, new ArrayList<>());
+                seq = stream.sequence.get();
+                break;
+            }
+        }
+        emitter.onCompletion(() -> remove(tripId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> remove(tripId, emitter));
+
+        Map<String, Object> snapshot;
+        try {
+            snapshot = snapshot(tripId);
+        } catch (RuntimeException ex) {
+            remove(tripId, emitter);
+            throw ex;
+        }
+        snapshot.put("seq", seq);
+        // Under the lock so that no later delta overtakes the ones held back
+        synchronized (stream) {
+            List<Map<String, Object>> missed = stream.joining.remove(emitter);
+            if (missed != null) {
+                send(tripId, emitter, "snapshot", snapshot);
+                missed.forEach(delta -> send(tripId, emitter, "seats", delta));
+            }
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onSeatStateChanged(SeatStateChangedEvent event) {
+        TripStream stream = streams.get(event.getTripId());
+        if (stream == null) {
+            return;
+        }
+        synchronized (stream) {
+            for (Integer seatNumber : event.getSeatNumbers()) {
+                if (stream.pending.put(seatNumber, event.getSeatState()) != null) {
+                    coalescedChanges.increment();
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.seat-stream.coalesce-ms:250}")
+    public void flush() {
+        for (Map.Entry<Long, TripStream> entry : streams.entrySet()) {
+            TripStream stream = entry.getValue();
+            Map<String, Object> delta = new LinkedHashMap<>();
+            List<SseEmitter> ready = new ArrayList<>();
+            synchronized (stream) {
+                if (stream.pending.isEmpty()) {
+                    continue;
+                }
+                delta.put("tripId", entry.getKey());
+                delta.put("seq", stream.sequence.incrementAndGet());
+                delta.putAll(groupByState(stream.pending));
+                stream.pending.clear();
+                stream.joining.values().forEach(missed -> missed.add(delta));
+                stream.emitters.stream().filter(emitter -> !stream.joining.containsKey(emitter)).forEach(ready::add);
+            }
+            for (SseEmitter emitter : ready) {
+                send(entry.getKey(), emitter, "seats", delta);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastHeartbeat >= heartbeatMs) {
+            // Finds subscribers whose connection is gone on trips that are otherwise quiet
+            lastHeartbeat = now;
+            streams.forEach((tripId, stream) -> stream.emitters.forEach(emitter -> {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException ex) {
+                    remove(tripId, emitter);
+                }
+            }));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscribers.get());
+        stats.put("trips", streams.size());
+        stats.put("sentEvents", sentEvents.sum());
+        stats.put("coalescedChanges", coalescedChanges.sum());
+        return stats;
+    }
+
+    private Map<String, Object> snapshot(Long tripId) {
+        TripSeatInventory inventory = seatInventoryService.getInventory(tripId);
+        byte[] state = inventory.toSeatState(System.currentTimeMillis());
+        Map<Integer, Integer> taken = new HashMap<>();
+        for (int seatNumber = 1; seatNumber <= inventory.getCapacity(); seatNumber++) {
+            int seatState = SeatStateCodec.get(state, seatNumber);
+            if (seatState != SeatStateCodec.AVAILABLE) {
+                taken.put(seatNumber, seatState);
+            }
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("tripId", tripId);
+        snapshot.put("totalSeats", inventory.getCapacity());
+        snapshot.putAll(groupByState(taken));
+        return snapshot;
+    }
+
+    // {"held": [3, 4], "available": [7]}, leaving out states without seats
+    private static Map<String, List<Integer>> groupByState(Map<Integer, Integer> seats) {
+        Map<String, List<Integer>> grouped = new LinkedHashMap<>();
+        seats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(seat -> grouped.computeIfAbsent(STATE_NAMES[seat.getValue()], s -> new ArrayList<>())
+                        .add(seat.getKey()));
+        return grouped;
+    }
+
+    private void send(Long tripId, SseEmitter emitter, String name, Map<String, Object> data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            sentEvents.increment();
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Dropping seat map subscriber of trip {}: {}", tripId, ex.getMessage());
+            remove(tripId, emitter);
+        }
+    }
+
+    private void remove(Long tripId, SseEmitter emitter) {
+        TripStream stream = streams.get(tripId);
+        if (stream == null) {
+            return;
+        }
+        synchronized (stream) {
+            stream.joining.remove(emitter);
+            if (stream.emitters.remove(emitter)) {
+                subscribers.decrementAndGet();
+            }
+            if (stream.emitters.isEmpty()) {
+                streams.remove(tripId, stream);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.busticket.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published inside the transaction that frees seats of a trip, while it holds the trip lock. The lock
+ * is let go only after the transaction's after-commit callbacks, so a listener can register one to take
+ * the seats, in a transaction of its own, before other holds on this instance see them as available.
+ */
+public class SeatsReleasedEvent {
+
+    private final Long tripId;
+    private final List<Integer> seatNumbers;
+
+    public SeatsReleasedEvent(Long tripId, Collection<Integer> seatNumbers) {
+        this.tripId = tripId;
+        this.seatNumbers = List.copyOf(seatNumbers);
+    }
+
+    public Long getTripId() {
+        return tripId;
+    }
+
+    public List<Integer> getSeatNumbers() {
+        return seatNumbers;
+    }
+}
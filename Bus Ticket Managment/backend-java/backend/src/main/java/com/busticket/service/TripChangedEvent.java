@@ -0,0 +1,40 @@
+package com.busticket.service;
+
+import java.time.LocalDate;
+
+/**
+ * Published when trips were created, changed or removed. Names the route and date whose search
+ * results changed, or none when a bus or route edit may have touched any of them.
+ */
+public class TripChangedEvent {
+
+    private final String source;
+    private final String destination;
+    private final LocalDate tripDate;
+
+    public TripChangedEvent(String source, String destination, LocalDate tripDate) {
+        this.source = source;
+        this.destination = destination;
+        this.tripDate = tripDate;
+    }
+
+    public static TripChangedEvent allTrips() {
+        return new TripChangedEvent(null, null, null);
+    }
+
+    public boolean isAllTrips() {
+        return source == null;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public LocalDate getTripDate() {
+        return tripDate;
+    }
+}
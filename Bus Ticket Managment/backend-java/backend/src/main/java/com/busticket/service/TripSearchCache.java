@@ -0,0 +1,137 @@
+package com.busticket.service;
+
+import com.busticket.dto.TripSearchResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Search results by (source, destination, date), least recently used first out. The cache is bounded
+ * by the total number of results it holds rather than by entries, since one busy route can have many
+ * trips a day. Entries are dropped when a {@link TripChangedEvent} names their route and date, and
+ * after a TTL as a backstop for changes made outside the services. Seat counts are not part of what
+ * is cached; {@link TripService} overlays them on every hit.
+ */
+@Component
+public class TripSearchCache {
+
+    private static class Entry {
+        final List<TripSearchResult> results;
+        final long loadedAt;
+
+        Entry(List<TripSearchResult> results, long loadedAt) {
+            this.results = results;
+            this.loadedAt = loadedAt;
+        }
+
+        // An empty result still costs an entry
+        int weight() {
+            return Math.max(1, results.size());
+        }
+    }
+
+    private final int maxResults;
+    private final long ttlMs;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int cachedResults;
+
+    // Bumped by every invalidation, so a load that raced with one is not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public TripSearchCache(@Value("${app.trip-search.cache.max-results:20000}") int maxResults,
+                           @Value("${app.trip-search.cache.ttl-ms:300000}") long ttlMs) {
+        this.maxResults = maxResults;
+        this.ttlMs = ttlMs;
+    }
+
+    public List<TripSearchResult> get(String source, String destination, LocalDate tripDate,
+                                      Supplier<List<TripSearchResult>> loader) {
+        String key = cacheKey(source, destination, tripDate);
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.loadedAt < ttlMs) {
+                hits++;
+                return entry.results;
+            }
+            misses++;
+            loadGeneration = generation.get();
+        }
+        List<TripSearchResult> results = List.copyOf(loader.get());
+        synchronized (this) {
+            if (generation.get() == loadGeneration && results.size() <= maxResults) {
+                remove(key);
+                Entry entry = new Entry(results, System.currentTimeMillis());
+                entries.put(key, entry);
+                cachedResults += entry.weight();
+                evictOverflow();
+            }
+        }
+        return results;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onTripChanged(TripChangedEvent event) {
+        generation.incrementAndGet();
+        invalidations++;
+        if (event.isAllTrips()) {
+            entries.clear();
+            cachedResults = 0;
+        } else {
+            remove(cacheKey(event.getSource(), event.getDestination(), event.getTripDate()));
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("cachedResults", cachedResults);
+        stats.put("maxResults", maxResults);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+
+    // Route names compare case-insensitively in MySQL, so "pune" and "Pune" share an entry
+    private static String cacheKey(String source, String destination, LocalDate tripDate) {
+        return normalize(source) + "|" + normalize(destination) + "|" + tripDate;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            cachedResults -= removed.weight();
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (cachedResults > maxResults && eldest.hasNext()) {
+            cachedResults -= eldest.next().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.busticket.service;
+
+import com.busticket.dto.TripSearchResult;
+import com.busticket.repository.TripSearchIndexRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the trip_search_index table in step with trips, buses and routes. A {@link TripChangedEvent}
+ * copies the rows of its route and date again; an event that may touch any trip rebuilds the whole
+ * table. Free seats follow {@link SeatStateChangedEvent}s, batched: the trips that changed are noted
+ * and their counters copied over once a second.
+ *
+ * Trip changes are applied before the search cache drops the same results, so a search that
+ * reloads them straight after already reads the new rows.
+ */
+@Service
+public class TripSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TripSearchIndex.class);
+
+    @Autowired
+    private TripSearchIndexRepository tripSearchIndexRepository;
+
+    // Changes arrive after the triggering transaction committed, so they need one of their own
+    private final TransactionTemplate requiresNew;
+
+    private final Set<Long> seatChanges = ConcurrentHashMap.newKeySet();
+    private final AtomicLong routeDateRefreshes = new AtomicLong();
+    private final AtomicLong seatRefreshes = new AtomicLong();
+    private volatile LocalDateTime rebuiltAt;
+
+    public TripSearchIndex(PlatformTransactionManager transactionManager) {
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public List<TripSearchResult> findTrips(String source, String destination, LocalDate tripDate) {
+        return tripSearchIndexRepository.findSearchResults(key(source), key(destination), tripDate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (DataAccessException ex) {
+            log.warn("Could not build the trip search index: {}", ex.getMessage());
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        if (event.isAllTrips()) {
+            rebuild();
+            return;
+        }
+        String sourceKey = key(event.getSource());
+        String destinationKey = key(event.getDestination());
+        requiresNew.executeWithoutResult(status -> {
+            tripSearchIndexRepository.deleteRouteDate(sourceKey, destinationKey, event.getTripDate());
+            tripSearchIndexRepository.insertRouteDate(sourceKey, destinationKey, event.getTripDate());
+        });
+        routeDateRefreshes.incrementAndGet();
+    }
+
+    @EventListener
+    public void onSeatStateChanged(SeatStateChangedEvent event) {
+        seatChanges.add(event.getTripId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.trip-search.index.seat-flush-ms:1000}")
+    public void flushSeatChanges() {
+        if (seatChanges.isEmpty()) {
+            return;
+        }
+        List<Long> tripIds = new ArrayList<>(seatChanges);
+        seatChanges.removeAll(tripIds);
+        try {
+            requiresNew.executeWithoutResult(status -> tripSearchIndexRepository.refreshFreeSeats(tripIds));
+            seatRefreshes.addAndGet(tripIds.size());
+        } catch (DataAccessException ex) {
+            // Tried again on the next flush
+            seatChanges.addAll(tripIds);
+            log.warn("Could not refresh free seats of {} trips in the search index: {}", tripIds.size(), ex.getMessage());
+        }
+    }
+
+    // Past days are never searched
+    @Scheduled(cron = "${app.trip-search.index.purge-cron:0 10 0 * * *}")
+    public void purgePastTrips() {
+        requiresNew.executeWithoutResult(status -> tripSearchIndexRepository.deleteBefore(LocalDate.now()));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rebuiltAt", rebuiltAt);
+        stats.put("routeDateRefreshes", routeDateRefreshes.get());
+        stats.put("seatRefreshes", seatRefreshes.get());
+        stats.put("pendingSeatChanges", seatChanges.size());
+        return stats;
+    }
+
+    void rebuild() {
+        Integer rows = requiresNew.execute(status -> {
+            tripSearchIndexRepository.deleteAllEntries();
+            return tripSearchIndexRepository.insertFromDate(LocalDate.now());
+        });
+        rebuiltAt = LocalDateTime.now();
+        log.info("Trip search index rebuilt with {} trips", rows);
+    }
+
+    // Same as LOWER(TRIM(...)) in the insert
+    static String key(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+}
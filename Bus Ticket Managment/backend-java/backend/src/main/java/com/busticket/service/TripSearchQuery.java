@@ -0,0 +1,193 @@
+package com.busticket.service;
+
+import com.busticket.dto.TripSearchPage;
+import com.busticket.dto.TripSearchRequest;
+import com.busticket.dto.TripSearchResult;
+import com.busticket.model.Bus;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The filters, sort order and page of one trip search, applied to the trips of a route and date
+ * once their live seat counts are known. Pages are keyset pages: the cursor holds the sort value
+ * and id of the last trip returned, so trips added or sold out between pages do not shift or
+ * repeat results. Trips without enough seats are kept and marked sold out, so a trip does not
+ * disappear from the list while its seats are briefly held.
+ */
+class TripSearchQuery {
+
+    enum SortKey {
+        DEPARTURE_TIME, FARE, DURATION
+    }
+
+    private final int passengers;
+    private final Bus.BusType busType;
+    private final LocalTime departureFrom;
+    private final LocalTime departureTo;
+    private final BigDecimal minFare;
+    private final BigDecimal maxFare;
+    private final SortKey sortBy;
+    private final boolean descending;
+    private final String after;
+    private final int limit;
+
+    TripSearchQuery(TripSearchRequest request, int maxPageSize) {
+        this.passengers = request.getPassengers() != null ? request.getPassengers() : 1;
+        if (passengers < 1) {
+            throw new RuntimeException("At least one passenger is required");
+        }
+        this.busType = parseBusType(request.getBusType());
+        this.departureFrom = request.getDepartureFrom();
+        this.departureTo = request.getDepartureTo();
+        this.minFare = request.getMinFare();
+        this.maxFare = request.getMaxFare();
+        if (minFare != null && maxFare != null && minFare.compareTo(maxFare) > 0) {
+            throw new RuntimeException("Minimum fare must not be above maximum fare");
+        }
+        this.sortBy = parseSortKey(request.getSortBy());
+        this.descending = "DESC".equalsIgnoreCase(request.getSortOrder());
+        if (request.getSortOrder() != null && !descending && !"ASC".equalsIgnoreCase(request.getSortOrder())) {
+            throw new RuntimeException("Sort order must be ASC or DESC");
+        }
+        this.after = request.getAfter();
+        if (request.getLimit() != null && request.getLimit() < 1) {
+            throw new RuntimeException("Limit must be positive");
+        }
+        this.limit = request.getLimit() != null ? Math.min(request.getLimit(), maxPageSize) : maxPageSize;
+    }
+
+    TripSearchPage apply(List<TripSearchResult> trips) {
+        List<TripSearchResult> matching = new ArrayList<>();
+        for (TripSearchResult trip : trips) {
+            if (matches(trip)) {
+                boolean soldOut = trip.getAvailableSeats() == null || trip.getAvailableSeats() < passengers;
+                matching.add(soldOut ? trip.asSoldOut() : trip);
+            }
+        }
+        matching.sort((a, b) -> compare(sortValue(a), a.getId(), sortValue(b), b.getId()));
+
+        int from = 0;
+        if (after != null && !after.isBlank()) {
+            Object[] last = parseCursor(after);
+            while (from < matching.size()
+                    && compare(sortValue(matching.get(from)), matching.get(from).getId(), (Comparable<?>) last[0], (Long) last[1]) <= 0) {
+                from++;
+            }
+        }
+        int to = Math.min(from + limit, matching.size());
+        List<TripSearchResult> page = List.copyOf(matching.subList(from, to));
+        String nextCursor = to < matching.size() ? toCursor(page.get(page.size() - 1)) : null;
+        return new TripSearchPage(page, nextCursor);
+    }
+
+    private boolean matches(TripSearchResult trip) {
+        if (busType != null && trip.getBus().getBusType() != busType) {
+            return false;
+        }
+        if (departureFrom != null && trip.getDepartureTime().isBefore(departureFrom)) {
+            return false;
+        }
+        if (departureTo != null && trip.getDepartureTime().isAfter(departureTo)) {
+            return false;
+        }
+        BigDecimal fare = fare(trip);
+        return (minFare == null || fare.compareTo(minFare) >= 0) && (maxFare == null || fare.compareTo(maxFare) <= 0);
+    }
+
+    // By sort value in the requested direction, then by id so that every trip has its own place
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private int compare(Comparable value, Long id, Comparable otherValue, Long otherId) {
+        int result = value.compareTo(otherValue);
+        if (descending) {
+            result = -result;
+        }
+        return result != 0 ? result : Long.compare(id, otherId);
+    }
+
+    private Comparable<?> sortValue(TripSearchResult trip) {
+        switch (sortBy) {
+            case FARE:
+                return fare(trip);
+            case DURATION:
+                return durationMinutes(trip.getDepartureTime(), trip.getArrivalTime());
+            default:
+                return trip.getDepartureTime();
+        }
+    }
+
+    // The sort value and id of the last trip on the page, which is all compare() needs
+    private String toCursor(TripSearchResult trip) {
+        String value = sortBy == SortKey.FARE ? fare(trip).toPlainString() : String.valueOf(sortValue(trip));
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((value + "|" + trip.getId()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Sort value and id, as written by toCursor()
+    private Object[] parseCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            String value = decoded.substring(0, separator);
+            Long id = Long.valueOf(decoded.substring(separator + 1));
+            switch (sortBy) {
+                case FARE:
+                    return new Object[]{new BigDecimal(value), id};
+                case DURATION:
+                    return new Object[]{Long.valueOf(value), id};
+                default:
+                    return new Object[]{LocalTime.parse(value), id};
+            }
+        } catch (RuntimeException ex) {
+            throw new RuntimeException("Invalid search cursor");
+        }
+    }
+
+    private static BigDecimal fare(TripSearchResult trip) {
+        return trip.getFare() != null ? trip.getFare() : BigDecimal.ZERO;
+    }
+
+    // Arrival before departure means the trip arrives the next day
+    static long durationMinutes(LocalTime departureTime, LocalTime arrivalTime) {
+        if (arrivalTime == null) {
+            return 0;
+        }
+        long minutes = Duration.between(departureTime, arrivalTime).toMinutes();
+        return minutes < 0 ? minutes + 24 * 60 : minutes;
+    }
+
+    private static Bus.BusType parseBusType(String busType) {
+        if (busType == null || busType.isBlank()) {
+            return null;
+        }
+        try {
+            return Bus.BusType.valueOf(busType.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new RuntimeException("Unknown bus type: " + busType);
+        }
+    }
+
+    private static SortKey parseSortKey(String sortBy) {
+        if (sortBy == null || sortBy.isBlank()) {
+            return SortKey.DEPARTURE_TIME;
+        }
+        switch (sortBy.trim().toLowerCase(Locale.ROOT)) {
+            case "departuretime":
+            case "departure":
+                return SortKey.DEPARTURE_TIME;
+            case "fare":
+            case "price":
+                return SortKey.FARE;
+            case "duration":
+                return SortKey.DURATION;
+            default:
+                throw new RuntimeException("Cannot sort trips by " + sortBy);
+        }
+    }
+}
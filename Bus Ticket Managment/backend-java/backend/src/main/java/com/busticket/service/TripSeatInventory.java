@@ -0,0 +1,384 @@
+package com.busticket.service;
+
+import com.busticket.model.Seat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory seat state of a single trip. Seat N lives at index N - 1 of the bitsets
+ * and arrays; all operations are synchronized on the instance, so one trip never blocks another.
+ */
+public class TripSeatInventory {
+
+    private final Long tripId;
+    private final int capacity;
+    private final BitSet booked;
+    private final BitSet held;
+    private final BitSet blocked; // seats taken out of sale
+    private final long[] holdExpiry; // epoch millis, only meaningful while the held bit is set
+    private final Seat.SeatType[] seatTypes;
+    private final long[] seatIds; // 0 until the seat row is known
+    private final BitSet materialized; // seats that have a row in the seats table
+    private volatile long seatStateVersion; // version of trips.seat_state this state matches
+
+    public TripSeatInventory(Long tripId, int capacity) {
+        this.tripId = tripId;
+        this.capacity = capacity;
+        this.booked = new BitSet(capacity);
+        this.held = new BitSet(capacity);
+        this.blocked = new BitSet(capacity);
+        this.holdExpiry = new long[capacity];
+        this.seatTypes = new Seat.SeatType[capacity];
+        this.seatIds = new long[capacity];
+        this.materialized = new BitSet(capacity);
+        for (int i = 0; i < capacity; i++) {
+            seatTypes[i] = defaultSeatType(i + 1);
+        }
+    }
+
+    public static Seat.SeatType defaultSeatType(int seatNumber) {
+        return (seatNumber % 2 == 1) ? Seat.SeatType.WINDOW : Seat.SeatType.AISLE;
+    }
+
+    public Long getTripId() {
+        return tripId;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    long getSeatStateVersion() {
+        return seatStateVersion;
+    }
+
+    void setSeatStateVersion(long seatStateVersion) {
+        this.seatStateVersion = seatStateVersion;
+    }
+
+    // Loads the persisted state of one seat row
+    synchronized void apply(Seat seat) {
+        int idx = index(seat.getSeatNumber());
+        if (idx < 0) {
+            return;
+        }
+        materialized.set(idx);
+        if (seat.getId() != null) {
+            seatIds[idx] = seat.getId();
+        }
+        if (seat.getSeatType() != null) {
+            seatTypes[idx] = seat.getSeatType();
+        }
+        booked.set(idx, seat.isBooked());
+        blocked.set(idx, seat.getStatus() == Seat.SeatStatus.MAINTENANCE || seat.getStatus() == Seat.SeatStatus.RESERVED);
+        if (seat.isHold() && seat.getHoldExpiry() != null) {
+            held.set(idx);
+            holdExpiry[idx] = SeatInventoryService.toEpochMillis(seat.getHoldExpiry());
+        } else {
+            held.clear(idx);
+            holdExpiry[idx] = 0L;
+        }
+    }
+
+    /**
+     * Loads the packed seat state of the trip. Hold deadlines are not part of it and come from
+     * {@link #applySeatRow}.
+     */
+    synchronized void applySeatState(byte[] seatState) {
+        int seats = Math.min(capacity, SeatStateCodec.capacity(seatState));
+        for (int idx = 0; idx < seats; idx++) {
+            int state = SeatStateCodec.get(seatState, idx + 1);
+            booked.set(idx, state == SeatStateCodec.BOOKED);
+            blocked.set(idx, state == SeatStateCodec.BLOCKED);
+            held.set(idx, state == SeatStateCodec.HELD);
+            holdExpiry[idx] = 0L;
+        }
+    }
+
+    // Records that a seat has a row and, if it is held, until when
+    synchronized void applySeatRow(Long seatId, Integer seatNumber, LocalDateTime seatHoldExpiry) {
+        int idx = index(seatNumber);
+        if (idx < 0) {
+            return;
+        }
+        materialized.set(idx);
+        seatIds[idx] = seatId;
+        if (held.get(idx)) {
+            holdExpiry[idx] = seatHoldExpiry != null ? SeatInventoryService.toEpochMillis(seatHoldExpiry) : 0L;
+        }
+    }
+
+    /**
+     * Packs the current state into the trips.seat_state format.
+     */
+    public synchronized byte[] toSeatState(long now) {
+        expireHolds(now);
+        byte[] state = SeatStateCodec.empty(capacity);
+        for (int idx = 0; idx < capacity; idx++) {
+            if (blocked.get(idx)) {
+                SeatStateCodec.set(state, idx + 1, SeatStateCodec.BLOCKED);
+            } else if (booked.get(idx)) {
+                SeatStateCodec.set(state, idx + 1, SeatStateCodec.BOOKED);
+            } else if (held.get(idx)) {
+                SeatStateCodec.set(state, idx + 1, SeatStateCodec.HELD);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Marks the given seats as having a row and returns those that did not have one yet, which the
+     * caller has to insert. Each seat is handed out once, unless {@link #unclaimSeatRows} gives it back.
+     */
+    synchronized List<Integer> claimSeatRows(Collection<Integer> seatNumbers) {
+        List<Integer> claimed = new ArrayList<>();
+        for (Integer seatNumber : seatNumbers) {
+            int idx = index(seatNumber);
+            if (idx >= 0 && !materialized.get(idx)) {
+                materialized.set(idx);
+                claimed.add(seatNumber);
+            }
+        }
+        return claimed;
+    }
+
+    synchronized void unclaimSeatRows(Collection<Integer> seatNumbers) {
+        for (Integer seatNumber : seatNumbers) {
+            int idx = index(seatNumber);
+            if (idx >= 0) {
+                materialized.clear(idx);
+            }
+        }
+    }
+
+    public synchronized boolean contains(Collection<Integer> seatNumbers) {
+        for (Integer seatNumber : seatNumbers) {
+            if (index(seatNumber) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Holds every requested seat or none of them.
+     *
+     * @return the first seat number that is not available, or {@code null} when all were held
+     */
+    public synchronized Integer tryHold(Collection<Integer> seatNumbers, long expiresAt, long now) {
+        for (Integer seatNumber : seatNumbers) {
+            if (!isAvailable(index(seatNumber), now)) {
+                return seatNumber;
+            }
+        }
+        for (Integer seatNumber : seatNumbers) {
+            int idx = index(seatNumber);
+            held.set(idx);
+            holdExpiry[idx] = expiresAt;
+        }
+        return null;
+    }
+
+    /**
+     * Picks {@code count} available seats and holds them in the same step. Prefers a single run of
+     * consecutive seats with the most seats of the preferred type, then one that leaves no free seat
+     * alone in its pair, then the tightest fitting run, then the front of the bus. When no run is long enough the seats come
+     * from the longest runs, so the group is split as little as possible.
+     *
+     * @return the held seat numbers in order, or an empty list when fewer than {@code count} are available
+     */
+    public synchronized List<Integer> allocate(int count, Seat.SeatType preference, long expiresAt, long now) {
+        expireHolds(now);
+        BitSet free = new BitSet(capacity);
+        free.set(0, capacity);
+        free.andNot(booked);
+        free.andNot(held);
+        free.andNot(blocked);
+        if (count < 1 || free.cardinality() < count) {
+            return List.of();
+        }
+
+        List<int[]> runs = new ArrayList<>();
+        int bestStart = -1;
+        int[] bestScore = null;
+        for (int start = free.nextSetBit(0); start >= 0; ) {
+            int end = free.nextClearBit(start);
+            runs.add(new int[]{start, end});
+            for (int from = start; from + count <= end; from++) {
+                int matches = 0;
+                for (int idx = from; idx < from + count; idx++) {
+                    if (seatTypes[idx] == preference) {
+                        matches++;
+                    }
+                }
+                // Seats left alone in a pair of two are hard to sell later
+                int stranded = 0;
+                if (from % 2 == 1 && free.get(from - 1)) {
+                    stranded++;
+                }
+                if ((from + count) % 2 == 1 && free.get(from + count)) {
+                    stranded++;
+                }
+                int[] score = {matches, -stranded, -(end - start - count), -from};
+                if (bestScore == null || Arrays.compare(score, bestScore) > 0) {
+                    bestScore = score;
+                    bestStart = from;
+                }
+            }
+            start = end < capacity ? free.nextSetBit(end) : -1;
+        }
+
+        List<Integer> allocated = new ArrayList<>(count);
+        if (bestStart >= 0) {
+            for (int idx = bestStart; idx < bestStart + count; idx++) {
+                allocated.add(idx + 1);
+            }
+        } else {
+            runs.sort((a, b) -> a[1] - a[0] != b[1] - b[0] ? (b[1] - b[0]) - (a[1] - a[0]) : a[0] - b[0]);
+            for (int[] run : runs) {
+                for (int idx = run[0]; idx < run[1] && allocated.size() < count; idx++) {
+                    allocated.add(idx + 1);
+                }
+            }
+            allocated.sort(null);
+        }
+        for (Integer seatNumber : allocated) {
+            held.set(seatNumber - 1);
+            holdExpiry[seatNumber - 1] = expiresAt;
+        }
+        return allocated;
+    }
+
+    public synchronized void confirm(Collection<Integer> seatNumbers) {
+        for (Integer seatNumber : seatNumbers) {
+            int idx = index(seatNumber);
+            if (idx >= 0) {
+                held.clear(idx);
+                holdExpiry[idx] = 0L;
+                booked.set(idx);
+            }
+        }
+    }
+
+    public synchronized void releaseHolds(Collection<Integer> seatNumbers) {
+        for (Integer seatNumber : seatNumbers) {
+            int idx = index(seatNumber);
+            if (idx >= 0) {
+                held.clear(idx);
+                holdExpiry[idx] = 0L;
+            }
+        }
+    }
+
+    /**
+     * Captures the booked and held state of the given seats; running the result puts it back.
+     */
+    public synchronized Runnable snapshot(Collection<Integer> seatNumbers) {
+        List<Integer> indexes = new ArrayList<>();
+        for (Integer seatNumber : seatNumbers) {
+            int idx = index(seatNumber);
+            if (idx >= 0) {
+                indexes.add(idx);
+            }
+        }
+        BitSet wasBooked = new BitSet(capacity);
+        BitSet wasHeld = new BitSet(capacity);
+        long[] expiries = new long[indexes.size()];
+        for (int i = 0; i < indexes.size(); i++) {
+            int idx = indexes.get(i);
+            wasBooked.set(idx, booked.get(idx));
+            wasHeld.set(idx, held.get(idx));
+            expiries[i] = holdExpiry[idx];
+        }
+        return () -> {
+            synchronized (this) {
+                for (int i = 0; i < indexes.size(); i++) {
+                    int idx = indexes.get(i);
+                    booked.set(idx, wasBooked.get(idx));
+                    held.set(idx, wasHeld.get(idx));
+                    holdExpiry[idx] = expiries[i];
+                }
+            }
+        };
+    }
+
+    public synchronized void releaseBookings(Collection<Integer> seatNumbers) {
+        for (Integer seatNumber : seatNumbers) {
+            int idx = index(seatNumber);
+            if (idx >= 0) {
+                booked.clear(idx);
+            }
+        }
+    }
+
+    public synchronized int availableCount(long now) {
+        expireHolds(now);
+        BitSet taken = (BitSet) booked.clone();
+        taken.or(held);
+        taken.or(blocked);
+        return capacity - taken.cardinality();
+    }
+
+    public synchronized int bookedCount() {
+        return booked.cardinality();
+    }
+
+    public synchronized int heldCount(long now) {
+        expireHolds(now);
+        return held.cardinality();
+    }
+
+    /**
+     * Snapshot of the seat map in the shape of the {@link Seat} JSON the clients already consume.
+     */
+    public synchronized List<Map<String, Object>> seatMap(long now) {
+        expireHolds(now);
+        List<Map<String, Object>> seats = new ArrayList<>(capacity);
+        for (int idx = 0; idx < capacity; idx++) {
+            Map<String, Object> seat = new LinkedHashMap<>();
+            boolean isBooked = booked.get(idx);
+            boolean isHeld = held.get(idx);
+            seat.put("id", seatIds[idx] != 0L ? seatIds[idx] : null);
+            seat.put("seatNumber", idx + 1);
+            seat.put("seatType", seatTypes[idx]);
+            seat.put("status", blocked.get(idx) ? Seat.SeatStatus.MAINTENANCE : isBooked ? Seat.SeatStatus.BOOKED
+                    : isHeld ? Seat.SeatStatus.HOLD : Seat.SeatStatus.AVAILABLE);
+            seat.put("booked", isBooked);
+            seat.put("hold", isHeld);
+            seat.put("holdExpiry", isHeld ? SeatInventoryService.toLocalDateTime(holdExpiry[idx]) : null);
+            seats.add(seat);
+        }
+        return seats;
+    }
+
+    private boolean isAvailable(int idx, long now) {
+        if (idx < 0 || booked.get(idx) || blocked.get(idx)) {
+            return false;
+        }
+        return !held.get(idx) || holdExpiry[idx] <= now;
+    }
+
+    // Drops holds whose expiry has passed so that counts can use plain cardinality
+    private void expireHolds(long now) {
+        for (int idx = held.nextSetBit(0); idx >= 0; idx = held.nextSetBit(idx + 1)) {
+            if (holdExpiry[idx] <= now) {
+                held.clear(idx);
+                holdExpiry[idx] = 0L;
+            }
+        }
+    }
+
+    private int index(Integer seatNumber) {
+        if (seatNumber == null || seatNumber < 1 || seatNumber > capacity) {
+            return -1;
+        }
+        return seatNumber - 1;
+    }
+}
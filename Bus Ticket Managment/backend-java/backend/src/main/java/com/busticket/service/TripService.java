@@ -1,14 +1,24 @@
 package com.busticket.service;
 
+import com.busticket.dto.TripSearchPage;
 import com.busticket.dto.TripSearchRequest;
+import com.busticket.dto.TripSearchResult;
 import com.busticket.model.Seat;
 import com.busticket.model.Trip;
+import com.busticket.repository.BusRepository;
 import com.busticket.repository.TripRepository;
+import com.busticket.repository.SeatBatchRepository;
 import com.busticket.repository.SeatRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,27 +35,98 @@ public class TripService {
     @Autowired
     private SeatRepository seatRepository;
 
-    public List<Trip> searchTrips(TripSearchRequest request) {
-        return tripRepository.findBySourceAndDestinationAndTripDate(
-            request.getSource(),
-            request.getDestination(),
-            request.getTravelDate()
-        );
+    @Autowired
+    private BusRepository busRepository;
+
+    @Autowired
+    private SeatBatchRepository seatBatchRepository;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private TripSearchCache tripSearchCache;
+
+    @Autowired
+    private TripSearchIndex tripSearchIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // "lazy" leaves seat rows to be created on a trip's first hold, "eager" writes them all up front
+    @Value("${app.seat-materialization:lazy}")
+    private String seatMaterialization;
+
+    @Value("${app.trip-search.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.fare-calendar.max-days:7}")
+    private int maxCalendarDays;
+
+    /**
+     * The trips of the route and date that pass the request's filters, in its sort order, one page
+     * at a time. Filters and the page are applied after live seat counts, so a trip that just sold
+     * out does not show up for a party it can no longer seat.
+     */
+    public TripSearchPage searchTrips(TripSearchRequest request) {
+        TripSearchQuery query = new TripSearchQuery(request, maxPageSize);
+        boolean[] loaded = new boolean[1];
+        List<TripSearchResult> results = tripSearchCache.get(request.getSource(), request.getDestination(),
+                request.getTravelDate(), () -> {
+                    loaded[0] = true;
+                    return tripSearchIndex.findTrips(
+                            request.getSource(),
+                            request.getDestination(),
+                            request.getTravelDate());
+                });
+        if (results.isEmpty()) {
+            return query.apply(results);
+        }
+        // Cached or not, seat counts are always the live ones. Rows just read carry the counter as of
+        // the last seat flush, close enough for trips whose seats are not in memory; cached rows
+        // need it read again.
+        List<Long> tripIds = results.stream().map(TripSearchResult::getId).toList();
+        Map<Long, Integer> seats = loaded[0] ? seatInventoryService.getCachedSeatCounts(tripIds)
+                : seatInventoryService.getAvailableSeatCounts(tripIds);
+        return query.apply(results.stream()
+                .map(result -> result.withAvailableSeats(seats.getOrDefault(result.getId(), result.getAvailableSeats())))
+                .toList());
     }
     
     public Map<String, Object> getTripSeats(Long tripId) {
         return seatService.getTripSeats(tripId);
     }
     
+    // The trip, its seat rows in eager mode and its counter commit together
+    @Transactional
     public Trip createTrip(Trip trip) {
+        // Requests name the bus by id only; its seat count sizes the trip
+        if (trip.getBus() != null && trip.getBus().getId() != null) {
+            trip.setBus(busRepository.findById(trip.getBus().getId())
+                    .orElseThrow(() -> new RuntimeException("Bus not found")));
+        }
+        if (trip.getAvailableSeats() == null && trip.getBus() != null && trip.getBus().getTotalSeats() != null) {
+            trip.setAvailableSeats(trip.getBus().getTotalSeats());
+        }
         Trip saved = tripRepository.save(trip);
-        generateSeatsForTrip(saved);
+        if ("eager".equalsIgnoreCase(seatMaterialization)) {
+            generateSeatsForTrip(saved);
+        }
+        publishTripChanged(searchKeys(saved.getId()));
         return saved;
     }
     
     public Trip updateTrip(Long id, Trip trip) {
         trip.setId(id);
-        return tripRepository.save(trip);
+        // The counter is not updatable through the entity; answer with the stored value
+        tripRepository.findAvailableSeatsByIds(List.of(id))
+                .forEach(row -> trip.setAvailableSeats((Integer) row[1]));
+        List<Object[]> before = searchKeys(id);
+        Trip saved = tripRepository.save(trip);
+        seatInventoryService.evict(id);
+        publishTripChanged(before);
+        publishTripChanged(searchKeys(id));
+        return saved;
     }
     
     public List<Trip> getTripsByRoute(Long routeId) {
@@ -65,26 +146,83 @@ public class TripService {
     }
 
     public Trip saveTrip(Trip trip) {
-        return tripRepository.save(trip);
+        List<Object[]> before = trip.getId() != null ? searchKeys(trip.getId()) : List.of();
+        Trip saved = tripRepository.save(trip);
+        publishTripChanged(before);
+        publishTripChanged(searchKeys(saved.getId()));
+        return saved;
     }
 
     public void deleteTrip(Long id) {
+        List<Object[]> before = searchKeys(id);
         tripRepository.deleteById(id);
+        seatInventoryService.evict(id);
+        publishTripChanged(before);
+    }
+
+    /**
+     * For every day within {@code days} of the date, from today on: the cheapest fare of a trip that
+     * can still seat the party, how many trips run and can seat it, and the seats left over all of
+     * them. Days without trips are included with zero trips.
+     */
+    public List<Map<String, Object>> getFareCalendar(String source, String destination, LocalDate date,
+                                                     int days, int passengers) {
+        if (days < 0 || days > maxCalendarDays) {
+            throw new RuntimeException("The calendar covers up to " + maxCalendarDays + " days either side");
+        }
+        if (passengers < 1) {
+            throw new RuntimeException("At least one passenger is required");
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate from = date.minusDays(days).isBefore(today) ? today : date.minusDays(days);
+        LocalDate to = date.plusDays(days);
+        Map<LocalDate, Object[]> rows = new HashMap<>();
+        if (!to.isBefore(from)) {
+            for (Object[] row : tripRepository.findFareCalendar(source, destination, from, to, passengers)) {
+                rows.put((LocalDate) row[0], row);
+            }
+        }
+
+        List<Map<String, Object>> calendar = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Object[] row = rows.get(day);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("date", day);
+            entry.put("cheapestFare", row != null ? row[1] : null);
+            entry.put("trips", row != null ? ((Number) row[2]).intValue() : 0);
+            entry.put("availableTrips", row != null ? ((Number) row[3]).intValue() : 0);
+            entry.put("seatsLeft", row != null ? ((Number) row[4]).intValue() : 0);
+            calendar.add(entry);
+        }
+        return calendar;
     }
 
     public List<Trip> getTripsByDate(LocalDate date) {
         return tripRepository.findByTripDate(date);
     }
 
+    @Transactional
     public Trip initSeats(Long tripId) {
         Trip trip = tripRepository.findById(tripId)
                 .orElseThrow(() -> new RuntimeException("Trip not found"));
         if (seatRepository.findByTripId(tripId).isEmpty()) {
             generateSeatsForTrip(trip);
+            seatInventoryService.evict(tripId);
         }
         return trip;
     }
 
+    // Route and date of the trip as stored, empty when there is no such trip
+    private List<Object[]> searchKeys(Long tripId) {
+        return tripRepository.findSearchKeyById(tripId);
+    }
+
+    private void publishTripChanged(List<Object[]> searchKeys) {
+        for (Object[] key : searchKeys) {
+            eventPublisher.publishEvent(new TripChangedEvent((String) key[0], (String) key[1], (LocalDate) key[2]));
+        }
+    }
+
     private void generateSeatsForTrip(Trip trip) {
         if (trip.getBus() == null || trip.getBus().getTotalSeats() == null) {
             return;
@@ -95,17 +233,17 @@ public class TripService {
             Seat seat = new Seat();
             seat.setTrip(trip);
             seat.setSeatNumber(i);
-            seat.setSeatType((i % 2 == 1) ? Seat.SeatType.WINDOW : Seat.SeatType.AISLE);
+            seat.setSeatType(TripSeatInventory.defaultSeatType(i));
             seat.setStatus(Seat.SeatStatus.AVAILABLE);
             seat.setBooked(false);
             seat.setHold(false);
             seat.setHoldExpiry(null);
             newSeats.add(seat);
         }
-        seatRepository.saveAll(newSeats);
+        seatBatchRepository.insertSeats(newSeats);
         if (trip.getAvailableSeats() == null) {
             trip.setAvailableSeats(totalSeats);
-            tripRepository.save(trip);
+            tripRepository.initAvailableSeats(trip.getId(), totalSeats);
         }
     }
 }
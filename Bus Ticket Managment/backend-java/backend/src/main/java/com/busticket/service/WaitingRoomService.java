@@ -0,0 +1,174 @@
+package com.busticket.service;
+
+import com.busticket.repository.TripRepository;
+import com.busticket.security.QueueTokenProvider;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for flash-sale trips. Once an admin opens a waiting room for a trip, seats can
+ * only be held with an admission token: users join the queue, get a signed token with their number,
+ * and are let in at the room's rate, like a token bucket that never banks more than one second of
+ * admissions. Nothing is stored per user; a room is two counters. Requests for a trip that the
+ * in-memory inventory shows as sold out are turned away before they reach the database.
+ */
+@Service
+public class WaitingRoomService {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private QueueTokenProvider queueTokenProvider;
+
+    @Value("${app.waiting-room.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${app.waiting-room.queue-token-ttl-ms:7200000}")
+    private long queueTokenTtlMs;
+
+    @Value("${app.waiting-room.admission-ttl-ms:180000}")
+    private long admissionTtlMs;
+
+    private static class Room {
+        final int admitPerSecond;
+        final AtomicLong issued = new AtomicLong();
+        final AtomicLong admittedUpTo;
+        double carry;
+
+        Room(int admitPerSecond) {
+            this.admitPerSecond = admitPerSecond;
+            this.admittedUpTo = new AtomicLong(admitPerSecond);
+        }
+    }
+
+    private final Map<Long, Room> rooms = new ConcurrentHashMap<>();
+    private final LongAdder turnedAway = new LongAdder();
+
+    public Map<String, Object> open(Long tripId, int admitPerSecond) {
+        if (admitPerSecond < 1) {
+            throw new RuntimeException("Admission rate must be at least one user per second");
+        }
+        if (!tripRepository.existsById(tripId)) {
+            throw new RuntimeException("Trip not found");
+        }
+        rooms.put(tripId, new Room(admitPerSecond));
+        return roomStats(tripId, rooms.get(tripId));
+    }
+
+    public void close(Long tripId) {
+        if (rooms.remove(tripId) == null) {
+            throw new RuntimeException("Trip has no waiting room");
+        }
+    }
+
+    public Map<String, Object> join(Long tripId, String username) {
+        Room room = rooms.get(tripId);
+        if (room == null) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("tripId", tripId);
+            status.put("waitingRoom", false);
+            status.put("admitted", true);
+            return status;
+        }
+        rejectIfSoldOut(tripId);
+        long sequence = room.issued.incrementAndGet();
+        String token = queueTokenProvider.generateToken(QueueTokenProvider.TYPE_QUEUE, tripId, username, sequence,
+                queueTokenTtlMs);
+        return status(tripId, room, token, sequence, username);
+    }
+
+    public Map<String, Object> getStatus(Long tripId, String queueToken, String username) {
+        Room room = rooms.get(tripId);
+        if (room == null) {
+            throw new RuntimeException("Trip has no waiting room");
+        }
+        rejectIfSoldOut(tripId);
+        Claims claims = queueTokenProvider.parseToken(queueToken, QueueTokenProvider.TYPE_QUEUE, tripId, username);
+        return status(tripId, room, queueToken, claims.get("seq", Long.class), username);
+    }
+
+    /**
+     * Lets a hold through when the trip has no waiting room, or the user was admitted to it.
+     */
+    public void checkAdmission(Long tripId, String admissionToken, String username) {
+        Room room = rooms.get(tripId);
+        if (room == null) {
+            return;
+        }
+        rejectIfSoldOut(tripId);
+        if (admissionToken == null || username == null) {
+            turnedAway.increment();
+            throw new RuntimeException("This trip has a waiting room, please join the queue first");
+        }
+        queueTokenProvider.parseToken(admissionToken, QueueTokenProvider.TYPE_ADMISSION, tripId, username);
+    }
+
+    @Scheduled(fixedRateString = "${app.waiting-room.tick-ms:1000}")
+    public void admit() {
+        for (Room room : rooms.values()) {
+            synchronized (room) {
+                double allowance = room.admitPerSecond * tickMs / 1000.0 + room.carry;
+                long whole = (long) allowance;
+                room.carry = allowance - whole;
+                // Idle capacity is banked up to one second of admissions, no more
+                long limit = room.issued.get() + room.admitPerSecond;
+                room.admittedUpTo.updateAndGet(admitted -> Math.max(admitted, Math.min(limit, admitted + whole)));
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<Long, Object> open = new LinkedHashMap<>();
+        rooms.forEach((tripId, room) -> open.put(tripId, roomStats(tripId, room)));
+        stats.put("rooms", open);
+        stats.put("turnedAway", turnedAway.sum());
+        return stats;
+    }
+
+    private void rejectIfSoldOut(Long tripId) {
+        if (seatInventoryService.getInventory(tripId).availableCount(System.currentTimeMillis()) == 0) {
+            turnedAway.increment();
+            throw new RuntimeException("This trip is sold out");
+        }
+    }
+
+    private Map<String, Object> status(Long tripId, Room room, String queueToken, long sequence, String username) {
+        long position = Math.max(0, sequence - room.admittedUpTo.get());
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("tripId", tripId);
+        status.put("waitingRoom", true);
+        status.put("queueToken", queueToken);
+        status.put("position", position);
+        status.put("etaSeconds", (position + room.admitPerSecond - 1) / room.admitPerSecond);
+        status.put("admitted", position == 0);
+        if (position == 0) {
+            status.put("admissionToken", queueTokenProvider.generateToken(QueueTokenProvider.TYPE_ADMISSION,
+                    tripId, username, sequence, admissionTtlMs));
+            status.put("admissionExpiresInSeconds", admissionTtlMs / 1000);
+        }
+        return status;
+    }
+
+    private static Map<String, Object> roomStats(Long tripId, Room room) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tripId", tripId);
+        stats.put("admitPerSecond", room.admitPerSecond);
+        stats.put("joined", room.issued.get());
+        stats.put("waiting", Math.max(0, room.issued.get() - room.admittedUpTo.get()));
+        return stats;
+    }
+}
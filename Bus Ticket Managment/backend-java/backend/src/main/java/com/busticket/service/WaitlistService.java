@@ -0,0 +1,323 @@
+package com.busticket.service;
+
+import com.busticket.concurrency.TripLockManager;
+import com.busticket.dto.BookingRequest;
+import com.busticket.dto.WaitlistRequest;
+import com.busticket.model.Booking;
+import com.busticket.model.Seat;
+import com.busticket.model.Trip;
+import com.busticket.model.User;
+import com.busticket.model.WaitlistEntry;
+import com.busticket.repository.TripRepository;
+import com.busticket.repository.UserRepository;
+import com.busticket.repository.WaitlistRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * First-come, first-served waitlist for sold out trips. Each trip's waiting entries are kept in an
+ * in-memory queue, rebuilt from the waitlist_entries table on startup. Whenever seats of a trip become
+ * available again (cancellation, refund or hold expiry), the head of its queue is promoted: seats are
+ * allocated and held for that user in a PENDING booking, and the user is notified. Promotion stops at
+ * the first entry that does not fit, so nobody is overtaken by a smaller party. Released seats are
+ * offered to the queue as soon as the release commits, by the releasing thread while it still holds the
+ * trip lock, so buyers on this instance cannot get them first. Every promotion runs in a transaction of
+ * its own and never fails the release.
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    // Promotions also run right after a release committed, so they need a transaction of their own
+    private TransactionTemplate requiresNew;
+
+    @Autowired
+    private TripLockManager tripLockManager;
+
+    @Value("${app.max-seats-per-booking:10}")
+    private int maxSeatsPerBooking;
+
+    private static class Ticket {
+        final Long entryId;
+        final int seatCount;
+
+        Ticket(Long entryId, int seatCount) {
+            this.entryId = entryId;
+            this.seatCount = seatCount;
+        }
+    }
+
+    private final Map<Long, Deque<Ticket>> queues = new ConcurrentHashMap<>();
+
+    // Promotions run one at a time off the committing thread; a trip is queued for promotion at most once
+    private final ExecutorService promoter = Executors.newSingleThreadExecutor();
+    private final Set<Long> pendingPromotions = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder promotedEntries = new LongAdder();
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        promoter.shutdown();
+    }
+
+    @Transactional
+    public WaitlistEntry join(WaitlistRequest request) {
+        if (request.getSeatCount() == null || request.getSeatCount() < 1) {
+            throw new RuntimeException("At least one seat must be requested");
+        }
+        if (request.getSeatCount() > maxSeatsPerBooking) {
+            throw new RuntimeException("Cannot book more than " + maxSeatsPerBooking + " seats per booking");
+        }
+        Trip trip = tripRepository.findById(request.getTripId())
+                .orElseThrow(() -> new RuntimeException("Trip not found"));
+        User user = userRepository.findById(request.getUserId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (waitlistRepository.existsByUserIdAndTripIdAndStatus(user.getId(), trip.getId(),
+                WaitlistEntry.WaitlistStatus.WAITING)) {
+            throw new RuntimeException("You are already on the waitlist for this trip");
+        }
+
+        WaitlistEntry saved = waitlistRepository.save(
+                new WaitlistEntry(user, trip, request.getSeatCount(), request.getSeatPreference()));
+        Ticket ticket = new Ticket(saved.getId(), saved.getSeatCount());
+        afterCommit(() -> {
+            enqueue(trip.getId(), ticket);
+            // Seats may have come free since the user last looked
+            schedulePromotion(trip.getId());
+        });
+        return saved;
+    }
+
+    @Transactional
+    public WaitlistEntry leave(Long entryId) {
+        WaitlistEntry entry = waitlistRepository.findById(entryId)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry not found"));
+        if (waitlistRepository.cancelWaiting(entryId) == 0) {
+            throw new RuntimeException("Waitlist entry is no longer waiting");
+        }
+        Long tripId = entry.getTrip().getId();
+        afterCommit(() -> {
+            Deque<Ticket> queue = queues.get(tripId);
+            if (queue != null) {
+                synchronized (queue) {
+                    queue.removeIf(ticket -> ticket.entryId.equals(entryId));
+                }
+            }
+        });
+        entry.setStatus(WaitlistEntry.WaitlistStatus.CANCELLED);
+        return entry;
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistEntry> getUserEntries(Long userId) {
+        return waitlistRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    }
+
+    // Waiting entries created before a restart are only known to the database
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadWaitingEntries() {
+        try {
+            List<Object[]> refs = waitlistRepository.findWaitingRefs();
+            for (Object[] ref : refs) {
+                enqueue((Long) ref[1], new Ticket((Long) ref[0], (Integer) ref[3]));
+            }
+            queues.keySet().forEach(this::schedulePromotion);
+            if (!refs.isEmpty()) {
+                log.info("Restored {} waitlist entries on {} trips", refs.size(), queues.size());
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not restore waitlist entries: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Promotes the entries that fit into the seats just released once the release has committed,
+     * while the releasing thread still holds the trip lock, so other holds on this instance wait until
+     * the queue had its turn. Each promotion has its own transaction: one that fails drops its entry
+     * like in {@link #promote} and leaves the committed release alone.
+     */
+    @EventListener
+    public void onSeatsReleased(SeatsReleasedEvent event) {
+        Long tripId = event.getTripId();
+        if (!queues.containsKey(tripId)) {
+            return;
+        }
+        afterCommit(() -> {
+            try {
+                promote(tripId);
+            } catch (RuntimeException ex) {
+                log.warn("Waitlist promotion for trip {} failed: {}", tripId, ex.getMessage());
+            }
+        });
+    }
+
+    // Picks up what is left once the release committed, e.g. seats of a party that did not fit before
+    @EventListener
+    public void onSeatStateChanged(SeatStateChangedEvent event) {
+        if (event.getSeatState() == SeatStateCodec.AVAILABLE && queues.containsKey(event.getTripId())) {
+            schedulePromotion(event.getTripId());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int waiting = 0;
+        for (Deque<Ticket> queue : queues.values()) {
+            synchronized (queue) {
+                waiting += queue.size();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("waitingEntries", waiting);
+        stats.put("trips", queues.size());
+        stats.put("promotedEntries", promotedEntries.sum());
+        return stats;
+    }
+
+    /**
+     * Promotes the waiting entries of the trip in order until the next one does not fit.
+     */
+    void promote(Long tripId) {
+        Deque<Ticket> queue = queues.get(tripId);
+        while (queue != null) {
+            Ticket head;
+            synchronized (queue) {
+                head = queue.peekFirst();
+                if (head == null) {
+                    queues.remove(tripId, queue);
+                    return;
+                }
+            }
+            if (seatInventoryService.getAvailableSeatCount(tripId) < head.seatCount) {
+                return;
+            }
+            try {
+                WaitlistEntry entry = requiresNew.execute(status -> promoteEntry(tripId, head));
+                if (entry != null) {
+                    promotedEntries.increment();
+                    notificationService.waitlistPromoted(entry, entry.getBooking());
+                }
+            } catch (RuntimeException ex) {
+                if (seatInventoryService.getAvailableSeatCount(tripId) < head.seatCount) {
+                    // Someone else took the seats first; wait for the next release
+                    return;
+                }
+                log.warn("Dropping waitlist entry {} that could not be promoted: {}", head.entryId, ex.getMessage());
+                requiresNew.execute(status -> waitlistRepository.cancelWaiting(head.entryId));
+            }
+            synchronized (queue) {
+                queue.remove(head);
+            }
+        }
+    }
+
+    // Holds seats for a waiting entry; null when the entry is no longer waiting. The trip is locked
+    // before the entry is read, so a promotion that ran for the same entry first is seen here
+    private WaitlistEntry promoteEntry(Long tripId, Ticket ticket) {
+        tripLockManager.lockForTransaction(tripId);
+        WaitlistEntry entry = waitlistRepository.findById(ticket.entryId).orElse(null);
+        if (entry == null || entry.getStatus() != WaitlistEntry.WaitlistStatus.WAITING) {
+            return null;
+        }
+        Trip trip = entry.getTrip();
+        BookingRequest request = new BookingRequest(entry.getUser().getId(), trip.getId(), null,
+                trip.getFare().multiply(BigDecimal.valueOf(entry.getSeatCount())));
+        request.setSeatCount(entry.getSeatCount());
+        request.setSeatPreference(entry.getSeatPreference());
+        Booking booking = bookingService.holdSeats(request);
+
+        entry.setStatus(WaitlistEntry.WaitlistStatus.PROMOTED);
+        entry.setBooking(booking);
+        entry.setPromotedAt(LocalDateTime.now());
+        return waitlistRepository.save(entry);
+    }
+
+    private void enqueue(Long tripId, Ticket ticket) {
+        while (true) {
+            Deque<Ticket> queue = queues.computeIfAbsent(tripId, id -> new ArrayDeque<>());
+            synchronized (queue) {
+                if (queues.get(tripId) == queue) {
+                    queue.addLast(ticket);
+                    return;
+                }
+            }
+            // The queue was emptied and dropped in the meantime
+        }
+    }
+
+    private void schedulePromotion(Long tripId) {
+        if (pendingPromotions.add(tripId)) {
+            promoter.execute(() -> {
+                pendingPromotions.remove(tripId);
+                try {
+                    promote(tripId);
+                } catch (RuntimeException ex) {
+                    log.warn("Waitlist promotion for trip {} failed: {}", tripId, ex.getMessage());
+                }
+            });
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,302 @@
+package com.busticket.benchmark;
+
+import com.busticket.concurrency.ConflictMetrics;
+import com.busticket.concurrency.TripLockManager;
+import com.busticket.dto.BookingRequest;
+import com.busticket.model.Booking;
+import com.busticket.model.Bus;
+import com.busticket.model.Route;
+import com.busticket.model.Trip;
+import com.busticket.model.User;
+import com.busticket.repository.BusRepository;
+import com.busticket.repository.RouteRepository;
+import com.busticket.repository.UserRepository;
+import com.busticket.service.BookingService;
+import com.busticket.service.SeatInventoryService;
+import com.busticket.service.TripService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives hold, confirm and cancel concurrently at a few hot trips through the real services on H2,
+ * logs throughput, latency percentiles and conflict rates, then checks the seat state for
+ * double bookings and counter drift. Tagged "benchmark" so it only runs with -Pbenchmark; sizes
+ * can be set with -Dbenchmark.threads, -Dbenchmark.operations, -Dbenchmark.trips, -Dbenchmark.seats,
+ * -Dbenchmark.confirm-ratio and -Dbenchmark.cancel-ratio.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingEngineBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingEngineBenchmark.class);
+
+    private static final String HOLD = "hold";
+    private static final String CONFIRM = "confirm";
+    private static final String CANCEL = "cancel";
+
+    @Autowired private BookingService bookingService;
+    @Autowired private TripService tripService;
+    @Autowired private SeatInventoryService seatInventoryService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ConflictMetrics conflictMetrics;
+    @Autowired private TripLockManager tripLockManager;
+
+    @Value("${benchmark.threads:16}")
+    private int threads;
+
+    @Value("${benchmark.operations:4000}")
+    private int operations;
+
+    @Value("${benchmark.trips:3}")
+    private int tripCount;
+
+    @Value("${benchmark.seats:40}")
+    private int seatsPerTrip;
+
+    @Value("${benchmark.confirm-ratio:0.7}")
+    private double confirmRatio;
+
+    @Value("${benchmark.cancel-ratio:0.2}")
+    private double cancelRatio;
+
+    @Test
+    void concurrentBookingsNeverDoubleBook() throws Exception {
+        List<Long> tripIds = createHotTrips();
+        List<Long> userIds = createUsers();
+        Map<String, OperationStats> stats = new LinkedHashMap<>();
+        for (String operation : List.of(HOLD, CONFIRM, CANCEL)) {
+            stats.put(operation, new OperationStats(operations));
+        }
+
+        AtomicInteger remaining = new AtomicInteger(operations);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            Long userId = userIds.get(i);
+            pool.execute(() -> {
+                awaitQuietly(start);
+                new Worker(userId, tripIds, stats).run(remaining);
+            });
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.MINUTES)).isTrue();
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        printReport(stats, elapsedNanos);
+
+        stats.forEach((operation, s) -> assertThat(s.errors.get()).as("unexpected %s errors", operation).isZero());
+        assertNoDoubleBooking();
+        for (Long tripId : tripIds) {
+            assertSeatCountsAgree(tripId);
+        }
+    }
+
+    private class Worker {
+        private final Long userId;
+        private final List<Long> tripIds;
+        private final Map<String, OperationStats> stats;
+        private final List<Long> pending = new ArrayList<>();
+        private final List<Long> confirmed = new ArrayList<>();
+
+        Worker(Long userId, List<Long> tripIds, Map<String, OperationStats> stats) {
+            this.userId = userId;
+            this.tripIds = tripIds;
+            this.stats = stats;
+        }
+
+        void run(AtomicInteger remaining) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (remaining.getAndDecrement() > 0) {
+                if (!pending.isEmpty() && random.nextDouble() < confirmRatio) {
+                    Long bookingId = pending.remove(random.nextInt(pending.size()));
+                    if (measure(CONFIRM, () -> bookingService.confirmBooking(bookingId))) {
+                        confirmed.add(bookingId);
+                    }
+                } else if (!confirmed.isEmpty() && random.nextDouble() < cancelRatio) {
+                    Long bookingId = confirmed.remove(random.nextInt(confirmed.size()));
+                    measure(CANCEL, () -> bookingService.cancelBooking(bookingId, "benchmark"));
+                } else {
+                    Long tripId = tripIds.get(random.nextInt(tripIds.size()));
+                    List<Integer> seats = random.ints(1, seatsPerTrip + 1).distinct()
+                            .limit(random.nextInt(1, 5)).boxed().toList();
+                    Booking[] held = new Booking[1];
+                    if (measure(HOLD, () -> held[0] = bookingService.holdSeats(
+                            new BookingRequest(userId, tripId, seats, BigDecimal.TEN)))) {
+                        pending.add(held[0].getId());
+                    }
+                }
+            }
+        }
+
+        private boolean measure(String operation, Runnable call) {
+            OperationStats s = stats.get(operation);
+            long started = System.nanoTime();
+            try {
+                call.run();
+                s.record(System.nanoTime() - started);
+                return true;
+            } catch (ConcurrencyFailureException ex) {
+                s.record(System.nanoTime() - started);
+                s.conflicts.incrementAndGet();
+            } catch (RuntimeException ex) {
+                s.record(System.nanoTime() - started);
+                if (ex.getMessage() != null && ex.getMessage().contains("not available")) {
+                    s.conflicts.incrementAndGet();
+                } else {
+                    s.errors.incrementAndGet();
+                    log.warn("Benchmark {} failed: {}", operation, ex.toString());
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class OperationStats {
+        final long[] latencies;
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicInteger conflicts = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+
+        OperationStats(int capacity) {
+            latencies = new long[capacity];
+        }
+
+        void record(long nanos) {
+            latencies[count.getAndIncrement()] = nanos;
+        }
+
+        double percentileMs(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    private void printReport(Map<String, OperationStats> stats, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%nBooking engine benchmark: %d threads, %d operations, %d trips x %d seats, %.2f s, %.0f ops/s%n",
+                threads, operations, tripCount, seatsPerTrip, seconds, operations / seconds));
+        report.append(String.format("%-8s %8s %8s %8s %9s %9s %9s %9s %9s%n",
+                "op", "count", "ops/s", "conflict", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors"));
+        stats.forEach((operation, s) -> {
+            long[] sorted = Arrays.copyOf(s.latencies, s.count.get());
+            Arrays.sort(sorted);
+            report.append(String.format("%-8s %8d %8.0f %7.1f%% %9.2f %9.2f %9.2f %9.2f %9d%n",
+                    operation, sorted.length, sorted.length / seconds,
+                    sorted.length == 0 ? 0.0 : s.conflicts.get() * 100.0 / sorted.length,
+                    s.percentileMs(sorted, 50), s.percentileMs(sorted, 95), s.percentileMs(sorted, 99),
+                    s.percentileMs(sorted, 100), s.errors.get()));
+        });
+        report.append("retries: ").append(conflictMetrics.snapshot()).append('\n');
+        report.append("trip locks: ").append(tripLockManager.snapshot()).append('\n');
+        log.info("{}", report);
+    }
+
+    // No seat may belong to two bookings that are still pending or confirmed
+    private void assertNoDoubleBooking() {
+        List<Map<String, Object>> doubleBooked = jdbcTemplate.queryForList(
+                "SELECT s.trip_id, s.seat_number, COUNT(*) AS bookings FROM booking_seats bs " +
+                "JOIN seats s ON s.id = bs.seat_id JOIN bookings b ON b.id = bs.booking_id " +
+                "WHERE b.booking_status IN ('PENDING', 'CONFIRMED') " +
+                "GROUP BY s.trip_id, s.seat_number HAVING COUNT(*) > 1");
+        assertThat(doubleBooked).as("seats in more than one active booking").isEmpty();
+    }
+
+    // Seat rows, confirmed bookings, the in-memory inventory and the trip counter must all agree
+    private void assertSeatCountsAgree(Long tripId) {
+        Integer bookedSeats = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM seats WHERE trip_id = ? AND is_booked = TRUE", Integer.class, tripId);
+        Integer confirmedSeats = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM booking_seats bs JOIN bookings b ON b.id = bs.booking_id " +
+                "WHERE b.trip_id = ? AND b.booking_status = 'CONFIRMED'", Integer.class, tripId);
+        Integer heldSeats = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM seats WHERE trip_id = ? AND is_hold = TRUE AND hold_expiry > ?",
+                Integer.class, tripId, LocalDateTime.now());
+        Integer availableSeats = jdbcTemplate.queryForObject(
+                "SELECT available_seats FROM trips WHERE id = ?", Integer.class, tripId);
+
+        assertThat(bookedSeats).as("booked seats of trip %d", tripId).isEqualTo(confirmedSeats);
+        assertThat(seatInventoryService.getInventory(tripId).bookedCount()).isEqualTo(bookedSeats);
+        assertThat(availableSeats).as("available seats of trip %d", tripId)
+                .isEqualTo(seatsPerTrip - bookedSeats - heldSeats);
+    }
+
+    private List<Long> createHotTrips() {
+        Bus bus = new Bus();
+        bus.setBusNumber("BENCH-" + System.nanoTime());
+        bus.setBusType(Bus.BusType.AC_SEATER);
+        bus.setOperatorName("Benchmark");
+        bus.setTotalSeats(seatsPerTrip);
+        bus = busRepository.save(bus);
+        Route route = new Route();
+        route.setSource("Benchmark A");
+        route.setDestination("Benchmark B");
+        route.setDistance(100.0);
+        route.setDuration(120);
+        route = routeRepository.save(route);
+
+        List<Long> tripIds = new ArrayList<>();
+        for (int i = 0; i < tripCount; i++) {
+            Trip trip = new Trip(bus, route, LocalDate.now().plusDays(1 + i), LocalTime.of(10, 0),
+                    LocalTime.of(12, 0), BigDecimal.TEN);
+            tripIds.add(tripService.createTrip(trip).getId());
+        }
+        return tripIds;
+    }
+
+    private List<Long> createUsers() {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            User user = new User();
+            user.setName("Benchmark User " + i);
+            user.setEmail("bench" + i + "@example.com");
+            user.setPassword("password");
+            user.setPhone(String.format("9%09d", i));
+            userIds.add(userRepository.save(user).getId());
+        }
+        return userIds;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.busticket.concurrency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConflictRetryAspectTest {
+
+    private ConflictMetrics metrics;
+    private ConflictRetryAspect aspect;
+
+    @BeforeEach
+    void setup() {
+        metrics = new ConflictMetrics();
+        aspect = new ConflictRetryAspect();
+        ReflectionTestUtils.setField(aspect, "conflictMetrics", metrics);
+        ReflectionTestUtils.setField(aspect, "maxAttempts", 3);
+        ReflectionTestUtils.setField(aspect, "initialBackoffMs", 1L);
+        ReflectionTestUtils.setField(aspect, "maxBackoffMs", 2L);
+    }
+
+    @Test
+    void retriesUntilSuccess() {
+        FlakyOperation proxy = proxy(new FlakyOperation(2));
+
+        assertThat(proxy.run()).isEqualTo("ok");
+        assertThat(stats()).containsEntry("attempts", 3L).containsEntry("conflicts", 2L);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        FlakyOperation proxy = proxy(new FlakyOperation(5));
+
+        assertThrows(OptimisticLockingFailureException.class, proxy::run);
+        assertThat(stats()).containsEntry("attempts", 3L).containsEntry("exhausted", 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats() {
+        return (Map<String, Object>) metrics.snapshot().get("test");
+    }
+
+    private FlakyOperation proxy(FlakyOperation target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    static class FlakyOperation {
+        private final AtomicInteger failuresLeft;
+
+        FlakyOperation() {
+            this(0);
+        }
+
+        FlakyOperation(int failures) {
+            this.failuresLeft = new AtomicInteger(failures);
+        }
+
+        @RetryOnConflict("test")
+        public String run() {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new OptimisticLockingFailureException("conflict");
+            }
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.busticket.concurrency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TripLockManagerTest {
+
+    private final TripLockManager lockManager = new TripLockManager(8, 50);
+
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void lockForTransaction_requiresTransaction() {
+        assertThrows(IllegalStateException.class, () -> lockManager.lockForTransaction(1L));
+    }
+
+    @Test
+    void locksAreReleasedOnCompletion_andContentionIsCounted() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        lockManager.lockForTransaction(List.of(1L, 2L));
+
+        // Another thread cannot take the stripe while this "transaction" is open
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> tryInOtherTransaction(1L));
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isFalse();
+
+        completeTransaction();
+        CompletableFuture<Boolean> free = CompletableFuture.supplyAsync(() -> tryInOtherTransaction(1L));
+        assertThat(free.get(5, TimeUnit.SECONDS)).isTrue();
+
+        Map<String, Object> stats = lockManager.snapshot();
+        assertThat((Long) stats.get("contended")).isGreaterThanOrEqualTo(1L);
+    }
+
+    private boolean tryInOtherTransaction(Long tripId) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            lockManager.lockForTransaction(tripId);
+            completeTransaction();
+            return true;
+        } catch (RuntimeException ex) {
+            TransactionSynchronizationManager.clearSynchronization();
+            return false;
+        }
+    }
+
+    private static void completeTransaction() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}
@@ -1,9 +1,15 @@
 package com.busticket.controller;
 
+import com.busticket.dto.BookingLegRequest;
 import com.busticket.dto.BookingRequest;
+import com.busticket.dto.JourneyBookingRequest;
+import com.busticket.dto.WaitlistRequest;
 import com.busticket.model.Booking;
+import com.busticket.model.WaitlistEntry;
 import com.busticket.service.BookingService;
 import com.busticket.service.UserService;
+import com.busticket.service.WaitingRoomService;
+import com.busticket.service.WaitlistService;
 import com.busticket.security.JwtAuthenticationFilter;
 import com.busticket.security.JwtTokenProvider;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -17,6 +23,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -29,6 +36,8 @@ class BookingControllerTest {
 
     @MockBean private BookingService bookingService;
     @MockBean private UserService userService;
+    @MockBean private WaitlistService waitlistService;
+    @MockBean private WaitingRoomService waitingRoomService;
     @MockBean private JwtAuthenticationFilter jwtAuthenticationFilter;
     @MockBean private JwtTokenProvider jwtTokenProvider;
 
@@ -47,6 +56,43 @@ class BookingControllerTest {
                 .content(objectMapper.writeValueAsString(req)))
                 .andExpect(status().isOk());
     }
-}
 
+    @Test
+    void holdJourney_checksEachLegWithItsOwnQueueToken() throws Exception {
+        Mockito.when(bookingService.holdJourney(any(JourneyBookingRequest.class))).thenReturn(new Booking());
+        BookingLegRequest first = new BookingLegRequest(1L, java.util.List.of(1));
+        first.setQueueToken("token-1");
+        BookingLegRequest second = new BookingLegRequest(2L, java.util.List.of(4));
+        second.setQueueToken("token-2");
+        JourneyBookingRequest req = new JourneyBookingRequest(1L, java.util.List.of(first, second),
+                java.math.BigDecimal.valueOf(100));
+
+        mockMvc.perform(post("/bookings/journey")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Queue-Token", "header-token")
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk());
+
+        Mockito.verify(waitingRoomService).checkAdmission(eq(1L), eq("token-1"), any());
+        Mockito.verify(waitingRoomService).checkAdmission(eq(2L), eq("token-2"), any());
+    }
+
+    @Test
+    void joinWaitlist_returnsOk() throws Exception {
+        Mockito.when(waitlistService.join(any(WaitlistRequest.class)))
+                .thenReturn(new WaitlistEntry());
+
+        mockMvc.perform(post("/bookings/waitlist")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new WaitlistRequest(1L, 1L, 2))))
+                .andExpect(status().isOk());
+    }
 
+    @Test
+    void joinWaitlist_rejectsMissingSeatCount() throws Exception {
+        mockMvc.perform(post("/bookings/waitlist")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\": 1, \"tripId\": 1}"))
+                .andExpect(status().isBadRequest());
+    }
+}
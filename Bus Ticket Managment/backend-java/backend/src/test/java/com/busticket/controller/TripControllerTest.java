@@ -1,8 +1,15 @@
 package com.busticket.controller;
 
+import com.busticket.dto.ScheduleRequest;
+import com.busticket.dto.TripSearchPage;
 import com.busticket.dto.TripSearchRequest;
 import com.busticket.model.Trip;
+import com.busticket.service.ScheduleJob;
+import com.busticket.service.JourneyPlanner;
+import com.busticket.service.ScheduleService;
+import com.busticket.service.SeatStreamService;
 import com.busticket.service.TripService;
+import com.busticket.service.WaitingRoomService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.busticket.security.JwtAuthenticationFilter;
 import com.busticket.security.JwtTokenProvider;
@@ -14,12 +21,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -33,6 +50,18 @@ class TripControllerTest {
     @MockBean
     private TripService tripService;
 
+    @MockBean
+    private ScheduleService scheduleService;
+
+    @MockBean
+    private SeatStreamService seatStreamService;
+
+    @MockBean
+    private WaitingRoomService waitingRoomService;
+
+    @MockBean
+    private JourneyPlanner journeyPlanner;
+
     @MockBean
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -45,7 +74,7 @@ class TripControllerTest {
     @Test
     void searchTrips_returnsList() throws Exception {
         Mockito.when(tripService.searchTrips(any(TripSearchRequest.class)))
-                .thenReturn(Collections.emptyList());
+                .thenReturn(new TripSearchPage(Collections.emptyList(), null));
 
         TripSearchRequest req = new TripSearchRequest();
         req.setSource("A");
@@ -56,8 +85,54 @@ class TripControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(req)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray());
+                .andExpect(jsonPath("$").isArray())
+                .andExpect(header().doesNotExist(TripController.NEXT_CURSOR_HEADER));
     }
-}
 
+    @Test
+    void searchTrips_returnsNextCursorHeader_whenMoreTripsMatch() throws Exception {
+        Mockito.when(tripService.searchTrips(any(TripSearchRequest.class)))
+                .thenReturn(new TripSearchPage(Collections.emptyList(), "next"));
 
+        TripSearchRequest req = new TripSearchRequest("A", "B", LocalDate.now());
+        req.setLimit(10);
+
+        mockMvc.perform(post("/trips/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(TripController.NEXT_CURSOR_HEADER, "next"));
+    }
+
+    @Test
+    void generateSchedules_acceptsJob() throws Exception {
+        Mockito.when(scheduleService.generateTrips(anyList())).thenReturn(new ScheduleJob(12, 1));
+
+        ScheduleRequest schedule = new ScheduleRequest(1L, 2L, LocalTime.of(8, 0), LocalTime.of(12, 0),
+                BigDecimal.valueOf(500), Set.of(DayOfWeek.MONDAY), LocalDate.now(), LocalDate.now().plusDays(90));
+
+        mockMvc.perform(post("/trips/schedules")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(schedule))))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.totalTrips").value(12))
+                .andExpect(jsonPath("$.status").value("RUNNING"));
+    }
+
+    @Test
+    void generateSchedules_rejectsIncompleteSchedule() throws Exception {
+        mockMvc.perform(post("/trips/schedules")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"routeId\": 1}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamTripSeats_startsEventStream() throws Exception {
+        Mockito.when(seatStreamService.subscribe(7L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/trips/7/seats/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+}
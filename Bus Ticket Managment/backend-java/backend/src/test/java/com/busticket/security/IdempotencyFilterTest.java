@@ -0,0 +1,146 @@
+package com.busticket.security;
+
+import com.busticket.model.IdempotencyRecord;
+import com.busticket.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotencyFilterTest {
+
+    private IdempotencyService idempotencyService;
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    void setup() {
+        idempotencyService = mock(IdempotencyService.class);
+        filter = new IdempotencyFilter(idempotencyService, new ObjectMapper(),
+                List.of("/bookings/hold", "/bookings/*/confirm"));
+    }
+
+    private MockHttpServletRequest holdRequest(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/bookings/hold");
+        request.setContextPath("/api/v1");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    @Test
+    void firstRequest_runsAndStoresResponse() throws Exception {
+        when(idempotencyService.begin(any(), eq("key-1"), any())).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) throws java.io.IOException {
+                // The controller can still read the body that was hashed
+                assertThat(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"tripId\":1}");
+                res.setContentType("application/json");
+                res.getWriter().write("{\"id\":7}");
+            }
+        };
+
+        filter.doFilter(holdRequest("{\"tripId\":1}"), response, chain);
+
+        assertThat(response.getContentAsString()).isEqualTo("{\"id\":7}");
+        verify(idempotencyService).save(eq("anonymous POST /bookings/hold"), eq("key-1"), any(), eq(200),
+                eq("application/json"), eq("{\"id\":7}"));
+        verify(idempotencyService).end("anonymous POST /bookings/hold", "key-1");
+    }
+
+    @Test
+    void bufferedBody_isHandedToReadListener() throws Exception {
+        when(idempotencyService.begin(any(), eq("key-1"), any())).thenReturn(true);
+        StringBuilder events = new StringBuilder();
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) throws java.io.IOException {
+                jakarta.servlet.ServletInputStream in = req.getInputStream();
+                in.setReadListener(new jakarta.servlet.ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws java.io.IOException {
+                        events.append("data:").append(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        events.append(";done");
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        events.append(";error");
+                    }
+                });
+            }
+        };
+
+        filter.doFilter(holdRequest("{\"tripId\":1}"), new MockHttpServletResponse(), chain);
+
+        assertThat(events.toString()).isEqualTo("data:{\"tripId\":1};done");
+    }
+
+    @Test
+    void duplicate_replaysStoredResponseWithoutRunningAgain() throws Exception {
+        MockHttpServletRequest first = holdRequest("{\"tripId\":1}");
+        when(idempotencyService.begin(any(), any(), any())).thenReturn(true);
+        filter.doFilter(first, new MockHttpServletResponse(), new MockFilterChain());
+        org.mockito.ArgumentCaptor<String> hash = org.mockito.ArgumentCaptor.forClass(String.class);
+        verify(idempotencyService).save(any(), any(), hash.capture(), anyInt(), any(), any());
+
+        when(idempotencyService.find("anonymous POST /bookings/hold", "key-1")).thenReturn(new IdempotencyRecord(
+                "key-1", "anonymous POST /bookings/hold", hash.getValue(), 200, "application/json", "{\"id\":7}",
+                LocalDateTime.now().plusHours(1)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(holdRequest("{\"tripId\":1}"), response, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("{\"id\":7}");
+        assertThat(response.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+
+        MockHttpServletResponse mismatch = new MockHttpServletResponse();
+        filter.doFilter(holdRequest("{\"tripId\":2}"), mismatch, new MockFilterChain());
+        assertThat(mismatch.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    void concurrentDuplicate_isRejected() throws Exception {
+        when(idempotencyService.begin(any(), any(), any())).thenReturn(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(holdRequest("{}"), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(409);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void requestsWithoutKeyOrOnOtherPaths_passThrough() throws Exception {
+        MockHttpServletRequest noKey = new MockHttpServletRequest("POST", "/bookings/hold");
+        MockHttpServletRequest otherPath = new MockHttpServletRequest("POST", "/bookings/1/cancel");
+        otherPath.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+
+        for (MockHttpServletRequest request : List.of(noKey, otherPath)) {
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            assertThat(chain.getRequest()).isSameAs(request);
+        }
+        verifyNoInteractions(idempotencyService);
+    }
+}
@@ -0,0 +1,95 @@
+package com.busticket.service;
+
+import com.busticket.dto.BookingRequest;
+import com.busticket.model.Booking;
+import com.busticket.model.Bus;
+import com.busticket.model.Route;
+import com.busticket.model.Trip;
+import com.busticket.model.User;
+import com.busticket.repository.BusRepository;
+import com.busticket.repository.RouteRepository;
+import com.busticket.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A hold that ran out and was taken over by another booking before the hold expiry released it:
+ * the late confirm of the first booking must not book the seat the second one now holds.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class BookingHoldTakeoverTest {
+
+    @Autowired private BookingService bookingService;
+    @Autowired private TripService tripService;
+    @Autowired private SeatInventoryService seatInventoryService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void lateConfirm_ofTakenOverHold_isRejected() {
+        Long tripId = createTrip();
+        Long first = createUser("first@example.com", "9000000001");
+        Long second = createUser("second@example.com", "9000000002");
+
+        Booking lapsed = bookingService.holdSeats(new BookingRequest(first, tripId, List.of(1), BigDecimal.TEN));
+        // The hold runs out before the hold expiry gets to it
+        jdbcTemplate.update("UPDATE seats SET hold_expiry = ? WHERE trip_id = ? AND seat_number = 1",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), tripId);
+        seatInventoryService.evict(tripId);
+        Booking takeover = bookingService.holdSeats(new BookingRequest(second, tripId, List.of(1), BigDecimal.TEN));
+
+        assertThrows(RuntimeException.class, () -> bookingService.confirmBooking(lapsed.getId()));
+
+        assertThat(bookingService.confirmBooking(takeover.getId()).getStatus())
+                .isEqualTo(Booking.BookingStatus.CONFIRMED);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT hold_booking_id FROM seats WHERE trip_id = ? AND seat_number = 1", Long.class, tripId))
+                .isEqualTo(takeover.getId());
+    }
+
+    private Long createTrip() {
+        Bus bus = new Bus();
+        bus.setBusNumber("TAKEOVER-1");
+        bus.setBusType(Bus.BusType.AC_SEATER);
+        bus.setOperatorName("Takeover Lines");
+        bus.setTotalSeats(12);
+        bus = busRepository.save(bus);
+
+        Route route = new Route();
+        route.setSource("Takeover A");
+        route.setDestination("Takeover B");
+        route.setDistance(100.0);
+        route.setDuration(120);
+        route = routeRepository.save(route);
+
+        return tripService.createTrip(new Trip(bus, route, LocalDate.now().plusDays(1), LocalTime.of(10, 0),
+                LocalTime.of(12, 0), BigDecimal.TEN)).getId();
+    }
+
+    private Long createUser(String email, String phone) {
+        User user = new User();
+        user.setName("Takeover User");
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setPhone(phone);
+        return userRepository.save(user).getId();
+    }
+}
@@ -1,14 +1,19 @@
 package com.busticket.service;
 
+import com.busticket.concurrency.TripLockManager;
+import com.busticket.dto.BookingLegRequest;
 import com.busticket.dto.BookingRequest;
+import com.busticket.dto.JourneyBookingRequest;
 import com.busticket.model.*;
 import com.busticket.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +27,9 @@ class BookingServiceTest {
     @Mock private SeatRepository seatRepository;
     @Mock private TripRepository tripRepository;
     @Mock private UserRepository userRepository;
+    @Mock private SeatInventoryService seatInventoryService;
+    @Mock private TripLockManager tripLockManager;
+    @Mock private HoldExpiryService holdExpiryService;
 
     @InjectMocks private BookingService bookingService;
 
@@ -55,8 +63,13 @@ class BookingServiceTest {
         Seat s1 = new Seat(); s1.setSeatNumber(1); s1.setTrip(trip); s1.setBooked(false); s1.setHold(false);
         Seat s2 = new Seat(); s2.setSeatNumber(2); s2.setTrip(trip); s2.setBooked(false); s2.setHold(false);
         when(seatRepository.findByTripIdAndSeatNumberIn(1L, req.getSeatNumbers())).thenReturn(List.of(s1, s2));
+        when(seatRepository.holdAvailableSeats(eq(1L), eq(req.getSeatNumbers()), any(), any(), any())).thenReturn(2);
 
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> {
+            Booking saved = inv.getArgument(0);
+            saved.setId(9L);
+            return saved;
+        });
 
         // ensure maxSeatsPerBooking > 0 for test
         try {
@@ -67,7 +80,101 @@ class BookingServiceTest {
 
         Booking booking = bookingService.holdSeats(req);
         assertThat(booking).isNotNull();
-        verify(bookingRepository).save(any(Booking.class));
+        assertThat(booking.getBookingSeats()).hasSize(2);
+        // The seats are held in the booking's name, so only this booking can confirm them
+        verify(seatRepository).holdAvailableSeats(eq(1L), eq(req.getSeatNumbers()), eq(9L), any(), any());
+        verify(bookingRepository, times(2)).save(any(Booking.class));
+    }
+
+    @Test
+    void holdSeats_locksTripBeforeFirstRead() {
+        BookingRequest req = new BookingRequest();
+        req.setTripId(1L);
+        req.setUserId(2L);
+        req.setSeatNumbers(List.of(4));
+        when(tripRepository.findById(1L)).thenReturn(Optional.of(new Trip()));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(new User()));
+        when(seatInventoryService.claimSeatRows(1L, List.of(4))).thenReturn(List.of());
+        when(seatRepository.holdAvailableSeats(eq(1L), eq(List.of(4)), any(), any(), any())).thenReturn(1);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        org.springframework.test.util.ReflectionTestUtils.setField(bookingService, "maxSeatsPerBooking", 10);
+
+        bookingService.holdSeats(req);
+
+        // A read before the lock would pin a snapshot older than the previous lock holder's commit
+        InOrder order = inOrder(tripLockManager, tripRepository, userRepository, seatInventoryService);
+        order.verify(tripLockManager).lockForTransaction(1L);
+        order.verify(tripRepository).findById(1L);
+        order.verify(userRepository).findById(2L);
+        order.verify(seatInventoryService).holdSeats(eq(1L), eq(List.of(4)), any());
+    }
+
+    @Test
+    void holdSeats_allocatesSeats_whenOnlyCountGiven() {
+        BookingRequest req = new BookingRequest();
+        req.setTripId(1L);
+        req.setUserId(2L);
+        req.setSeatCount(3);
+        req.setSeatPreference(Seat.SeatType.WINDOW);
+        req.setTotalAmount(java.math.BigDecimal.valueOf(150));
+
+        Trip trip = new Trip();
+        when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(new User()));
+        when(seatInventoryService.allocateSeats(eq(1L), eq(3), eq(Seat.SeatType.WINDOW), any())).thenReturn(List.of(5, 6, 7));
+        when(seatInventoryService.claimSeatRows(1L, List.of(5, 6, 7))).thenReturn(List.of());
+        when(seatRepository.holdAvailableSeats(eq(1L), eq(List.of(5, 6, 7)), any(), any(), any())).thenReturn(3);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        org.springframework.test.util.ReflectionTestUtils.setField(bookingService, "maxSeatsPerBooking", 10);
+
+        Booking booking = bookingService.holdSeats(req);
+
+        assertThat(booking.getPassengerCount()).isEqualTo(3);
+        verify(seatInventoryService, never()).holdSeats(any(), any(), any());
+        verify(seatRepository).findByTripIdAndSeatNumberIn(1L, List.of(5, 6, 7));
+    }
+
+    @Test
+    void holdJourney_holdsEveryLegInTripOrder() {
+        Trip first = new Trip(); first.setId(7L);
+        Trip second = new Trip(); second.setId(3L);
+        when(tripRepository.findAllById(any())).thenReturn(List.of(first, second));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(new User()));
+        when(seatInventoryService.claimSeatRows(any(), any())).thenReturn(List.of());
+        when(seatRepository.holdAvailableSeats(any(), any(), any(), any(), any())).thenReturn(2);
+        when(seatRepository.findByTripIdAndSeatNumberIn(7L, List.of(1, 2))).thenReturn(List.of(new Seat(), new Seat()));
+        when(seatRepository.findByTripIdAndSeatNumberIn(3L, List.of(5, 6))).thenReturn(List.of(new Seat(), new Seat()));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        org.springframework.test.util.ReflectionTestUtils.setField(bookingService, "maxSeatsPerBooking", 10);
+        org.springframework.test.util.ReflectionTestUtils.setField(bookingService, "maxLegsPerBooking", 4);
+
+        Booking booking = bookingService.holdJourney(new JourneyBookingRequest(2L, List.of(
+                new BookingLegRequest(7L, List.of(1, 2)), new BookingLegRequest(3L, List.of(5, 6))),
+                BigDecimal.valueOf(300)));
+
+        assertThat(booking.getTrip()).isSameAs(first);
+        assertThat(booking.getPassengerCount()).isEqualTo(2);
+        assertThat(booking.getBookingSeats()).hasSize(4);
+        verify(tripLockManager).lockForTransaction(java.util.Set.of(7L, 3L));
+        InOrder legs = inOrder(seatInventoryService);
+        legs.verify(seatInventoryService).holdSeats(eq(3L), eq(List.of(5, 6)), any());
+        legs.verify(seatInventoryService).holdSeats(eq(7L), eq(List.of(1, 2)), any());
+        verify(holdExpiryService).track(any(), eq(7L), any());
+        verify(holdExpiryService).track(any(), eq(3L), any());
+    }
+
+    @Test
+    void holdJourney_rejectsLegsWithDifferentSeatCounts() {
+        org.springframework.test.util.ReflectionTestUtils.setField(bookingService, "maxSeatsPerBooking", 10);
+        org.springframework.test.util.ReflectionTestUtils.setField(bookingService, "maxLegsPerBooking", 4);
+
+        JourneyBookingRequest req = new JourneyBookingRequest(2L, List.of(
+                new BookingLegRequest(1L, List.of(1, 2)), new BookingLegRequest(2L, List.of(5))),
+                BigDecimal.valueOf(300));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> bookingService.holdJourney(req));
+        assertThat(ex.getMessage()).isEqualTo("Every leg must have the same number of seats");
+        verifyNoInteractions(seatInventoryService, tripLockManager);
     }
 
     @Test
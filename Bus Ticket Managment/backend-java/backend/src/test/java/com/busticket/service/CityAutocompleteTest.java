@@ -0,0 +1,73 @@
+package com.busticket.service;
+
+import com.busticket.repository.RouteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class CityAutocompleteTest {
+
+    @Mock private RouteRepository routeRepository;
+
+    @InjectMocks private CityAutocomplete cityAutocomplete;
+
+    private final List<Object[]> routes = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(cityAutocomplete, "maxSuggestions", 10);
+        when(routeRepository.findRoutePopularity()).thenReturn(routes);
+    }
+
+    @Test
+    void suggest_ranksByPopularity_ignoringCaseAndAccents() {
+        route(1L, "Pune", "Goa", true, 3);
+        route(2L, "Puducherry", "Chennai", true, 40);
+        route(3L, "Panaji", "Pune", true, 0);
+        cityAutocomplete.reload();
+
+        assertThat(cityAutocomplete.suggest("PU", 10)).containsExactly("Puducherry", "Pune");
+        assertThat(cityAutocomplete.suggest("  púne", 10)).containsExactly("Pune");
+        assertThat(cityAutocomplete.suggest("x", 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_matchesLaterWords_andSkipsInactiveRoutes() {
+        route(1L, "Navi Mumbai", "Pune", true, 5);
+        route(2L, "Mumbai", "Nashik", true, 1);
+        route(3L, "Mysuru", "Ooty", false, 100);
+        cityAutocomplete.reload();
+
+        assertThat(cityAutocomplete.suggest("mu", 10)).containsExactly("Navi Mumbai", "Mumbai");
+        assertThat(cityAutocomplete.suggest("my", 10)).isEmpty();
+        assertThat(cityAutocomplete.suggest("", 2)).containsExactly("Navi Mumbai", "Pune");
+    }
+
+    @Test
+    void routeChange_updatesIndex_keepingBookingCounts() {
+        route(1L, "Pune", "Goa", true, 10);
+        route(2L, "Goa", "Mangaluru", true, 0);
+        cityAutocomplete.reload();
+
+        cityAutocomplete.onRouteChanged(new RouteChangedEvent(3L, "Goregaon", "Mumbai", true));
+        assertThat(cityAutocomplete.suggest("go", 10)).containsExactly("Goa", "Goregaon");
+
+        cityAutocomplete.onRouteChanged(new RouteChangedEvent(2L, "Goa", "Mangaluru", false));
+        assertThat(cityAutocomplete.suggest("ma", 10)).isEmpty();
+        assertThat(cityAutocomplete.suggest("go", 10)).containsExactly("Goa", "Goregaon");
+    }
+
+    private void route(Long id, String source, String destination, boolean active, long bookings) {
+        routes.add(new Object[]{id, source, destination, active, bookings});
+    }
+}
@@ -0,0 +1,45 @@
+package com.busticket.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HoldTimingWheelTest {
+
+    @Test
+    void advance_returnsOnlyDueEntries() {
+        HoldTimingWheel wheel = new HoldTimingWheel(1_000L, 4, 0L);
+        wheel.add(1L, 10L, 5_000L);
+        wheel.add(2L, 10L, 30_000L);
+
+        assertThat(wheel.advance(4_000L)).isEmpty();
+        List<HoldTimingWheel.Entry> due = wheel.advance(5_000L);
+
+        assertThat(due).extracting(HoldTimingWheel.Entry::getBookingId).containsExactly(1L);
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void entriesOnUpperLevels_cascadeDownAndExpireOnTime() {
+        HoldTimingWheel wheel = new HoldTimingWheel(1_000L, 4, 0L);
+        // 300 ticks lives on level 1, 5000 ticks on level 2
+        wheel.add(1L, 10L, 300_000L);
+        wheel.add(2L, 20L, 5_000_000L);
+
+        assertThat(wheel.advance(299_000L)).isEmpty();
+        assertThat(wheel.advance(300_000L)).extracting(HoldTimingWheel.Entry::getBookingId).containsExactly(1L);
+        assertThat(wheel.advance(4_999_000L)).isEmpty();
+        assertThat(wheel.advance(5_000_000L)).extracting(HoldTimingWheel.Entry::getTripId).containsExactly(20L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlines_expireOnNextAdvance() {
+        HoldTimingWheel wheel = new HoldTimingWheel(1_000L, 4, 10_000L);
+        wheel.add(1L, 10L, 2_000L);
+
+        assertThat(wheel.advance(10_000L)).hasSize(1);
+    }
+}
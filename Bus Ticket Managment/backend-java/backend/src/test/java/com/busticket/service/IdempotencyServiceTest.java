@@ -0,0 +1,88 @@
+package com.busticket.service;
+
+import com.busticket.model.IdempotencyRecord;
+import com.busticket.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    @Mock private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        idempotencyService = new IdempotencyService(2);
+        ReflectionTestUtils.setField(idempotencyService, "idempotencyRecordRepository", idempotencyRecordRepository);
+        ReflectionTestUtils.setField(idempotencyService, "ttlMs", 60000L);
+    }
+
+    @Test
+    void save_servesLaterLookupsFromMemory() {
+        when(idempotencyRecordRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        idempotencyService.save("u POST /bookings/hold", "k1", "hash", 200, "application/json", "{}");
+
+        assertThat(idempotencyService.find("u POST /bookings/hold", "k1").getRequestHash()).isEqualTo("hash");
+        verify(idempotencyRecordRepository, never()).findByIdempotencyKeyAndRequestScope(any(), any());
+    }
+
+    @Test
+    void find_fallsBackToTableAndIgnoresExpiredRecords() {
+        IdempotencyRecord expired = new IdempotencyRecord("k2", "u POST /payments/checkout", "hash", 200,
+                "application/json", "{}", LocalDateTime.now().minusSeconds(1));
+        when(idempotencyRecordRepository.findByIdempotencyKeyAndRequestScope("k2", "u POST /payments/checkout"))
+                .thenReturn(Optional.of(expired));
+
+        assertThat(idempotencyService.find("u POST /payments/checkout", "k2")).isNull();
+        assertThat(idempotencyService.find("u POST /payments/checkout", "k3")).isNull();
+    }
+
+    @Test
+    void begin_rejectsKeyAlreadyInFlight() {
+        assertThat(idempotencyService.begin("u", "k1", "hash")).isTrue();
+        assertThat(idempotencyService.begin("u", "k1", "hash")).isFalse();
+        idempotencyService.end("u", "k1");
+        assertThat(idempotencyService.begin("u", "k1", "hash")).isTrue();
+    }
+
+    @Test
+    void begin_rejectsKeyClaimedOnAnotherInstance() {
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        assertThat(idempotencyService.begin("u", "k1", "hash")).isFalse();
+        verify(idempotencyRecordRepository).deleteExpiredKey(eq("k1"), eq("u"), any());
+        // Not left in flight here, so the retry is judged by the table again
+        assertThat(idempotencyService.getStats()).containsEntry("inFlight", 0);
+    }
+
+    @Test
+    void save_completesClaim_andEndKeepsCompletedRecord() {
+        ArgumentCaptor<IdempotencyRecord> claim = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        assertThat(idempotencyService.begin("u", "k1", "hash")).isTrue();
+        verify(idempotencyRecordRepository).saveAndFlush(claim.capture());
+        assertThat(claim.getValue().isInProgress()).isTrue();
+        when(idempotencyRecordRepository.complete(eq("k1"), eq("u"), eq(201), any(), eq("{}"), any())).thenReturn(1);
+
+        idempotencyService.save("u", "k1", "hash", 201, "application/json", "{}");
+        idempotencyService.end("u", "k1");
+
+        verify(idempotencyRecordRepository, never()).save(any());
+        verify(idempotencyRecordRepository).deleteInProgress("k1", "u");
+    }
+}
@@ -0,0 +1,132 @@
+package com.busticket.service;
+
+import com.busticket.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class JourneyPlannerTest {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(1);
+
+    @Mock private TripRepository tripRepository;
+    @Mock private SeatInventoryService seatInventoryService;
+
+    @InjectMocks private JourneyPlanner journeyPlanner;
+
+    private final List<Object[]> trips = new ArrayList<>();
+    private final Map<Long, Integer> seats = new HashMap<>();
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(journeyPlanner, "horizonDays", 7);
+        ReflectionTestUtils.setField(journeyPlanner, "minTransferMinutes", 30);
+        ReflectionTestUtils.setField(journeyPlanner, "maxTransferMinutes", 720);
+        ReflectionTestUtils.setField(journeyPlanner, "maxResults", 20);
+        when(tripRepository.findJourneyLegs(any(LocalDate.class), any(LocalDate.class))).thenReturn(trips);
+        when(seatInventoryService.getAvailableSeatCounts(any())).thenAnswer(inv -> {
+            Map<Long, Integer> counts = new HashMap<>();
+            for (Long tripId : inv.<Collection<Long>>getArgument(0)) {
+                counts.put(tripId, seats.getOrDefault(tripId, 40));
+            }
+            return counts;
+        });
+    }
+
+    @Test
+    void findJourneys_ordersDirectAndConnectingTripsByArrival() {
+        trip(1L, "Pune", "Goa", DATE, "08:00", "18:00", 900);
+        trip(2L, "Pune", "Kolhapur", DATE, "06:00", "10:00", 300);
+        trip(3L, "Kolhapur", "Goa", DATE, "11:00", "15:00", 400);
+        journeyPlanner.rebuild();
+
+        List<Map<String, Object>> journeys = journeyPlanner.findJourneys("pune", "GOA", DATE, 1, 2);
+
+        assertThat(journeys).hasSize(2);
+        assertThat(journeys.get(0).get("connections")).isEqualTo(1);
+        assertThat(journeys.get(0).get("totalFare")).isEqualTo(BigDecimal.valueOf(700));
+        assertThat(journeys.get(0).get("transferMinutes")).isEqualTo(List.of(60L));
+        assertThat(journeys.get(1).get("connections")).isEqualTo(0);
+    }
+
+    @Test
+    void findJourneys_skipsConnectionsShorterThanMinimumTransfer() {
+        trip(2L, "Pune", "Kolhapur", DATE, "06:00", "10:00", 300);
+        trip(3L, "Kolhapur", "Goa", DATE, "10:15", "14:00", 400);
+        trip(4L, "Kolhapur", "Goa", DATE, "12:00", "16:00", 400);
+        journeyPlanner.rebuild();
+
+        List<Map<String, Object>> journeys = journeyPlanner.findJourneys("Pune", "Goa", DATE, 1, 2);
+
+        assertThat(journeys).hasSize(1);
+        assertThat(legIds(journeys.get(0))).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void findJourneys_findsTwoConnectionsAcrossAnOvernightLeg() {
+        trip(5L, "Delhi", "Jaipur", DATE, "20:00", "02:00", 500);
+        trip(6L, "Jaipur", "Udaipur", DATE.plusDays(1), "05:00", "11:00", 450);
+        trip(7L, "Udaipur", "Ahmedabad", DATE.plusDays(1), "12:30", "17:00", 350);
+        journeyPlanner.rebuild();
+
+        List<Map<String, Object>> journeys = journeyPlanner.findJourneys("Delhi", "Ahmedabad", DATE, 2, 2);
+
+        assertThat(journeys).hasSize(1);
+        assertThat(legIds(journeys.get(0))).containsExactly(5L, 6L, 7L);
+        assertThat(journeys.get(0).get("durationMinutes")).isEqualTo(21L * 60);
+        assertThat(journeyPlanner.findJourneys("Delhi", "Ahmedabad", DATE, 2, 1)).isEmpty();
+    }
+
+    @Test
+    void findJourneys_dropsItinerariesWithoutEnoughSeats_andPicksUpRefreshedLegs() {
+        trip(2L, "Pune", "Kolhapur", DATE, "06:00", "10:00", 300);
+        trip(3L, "Kolhapur", "Goa", DATE, "11:00", "15:00", 400);
+        journeyPlanner.rebuild();
+        seats.put(3L, 1);
+
+        assertThat(journeyPlanner.findJourneys("Pune", "Goa", DATE, 2, 2)).isEmpty();
+
+        List<Object[]> added = new ArrayList<>();
+        added.add(row(8L, "Kolhapur", "Goa", DATE, "13:00", "17:00", 420));
+        added.add(row(3L, "Kolhapur", "Goa", DATE, "11:00", "15:00", 400));
+        when(tripRepository.findJourneyLegs(anyString(), anyString(), any(LocalDate.class))).thenReturn(added);
+        journeyPlanner.refresh("Kolhapur", "Goa", DATE);
+
+        List<Map<String, Object>> journeys = journeyPlanner.findJourneys("Pune", "Goa", DATE, 2, 2);
+        assertThat(journeys).hasSize(1);
+        assertThat(legIds(journeys.get(0))).containsExactly(2L, 8L);
+    }
+
+    private void trip(Long id, String source, String destination, LocalDate date, String departs, String arrives, int fare) {
+        trips.add(row(id, source, destination, date, departs, arrives, fare));
+    }
+
+    private static Object[] row(Long id, String source, String destination, LocalDate date, String departs, String arrives, int fare) {
+        return new Object[]{id, source, destination, date, LocalTime.parse(departs), LocalTime.parse(arrives), BigDecimal.valueOf(fare)};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> legIds(Map<String, Object> journey) {
+        return ((List<Map<String, Object>>) journey.get("legs")).stream()
+                .map(leg -> (Long) leg.get("tripId"))
+                .toList();
+    }
+}
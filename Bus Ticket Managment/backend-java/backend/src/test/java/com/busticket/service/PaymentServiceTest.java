@@ -21,6 +21,7 @@ class PaymentServiceTest {
 
     @Mock private PaymentRepository paymentRepository;
     @Mock private BookingRepository bookingRepository;
+    @Mock private BookingService bookingService;
 
     @InjectMocks private PaymentService paymentService;
 
@@ -57,6 +58,21 @@ class PaymentServiceTest {
         assertThat(payment).isNotNull();
         verify(bookingRepository).save(any(Booking.class));
     }
-}
 
+    @Test
+    void processRefund_releasesSeatsOfConfirmedBooking() {
+        Booking booking = new Booking();
+        booking.setStatus(Booking.BookingStatus.CONFIRMED);
+        Payment payment = new Payment();
+        payment.setBooking(booking);
+        payment.setStatus(Payment.PaymentStatus.SUCCESS);
+        payment.setAmount(java.math.BigDecimal.valueOf(100));
+        when(paymentRepository.findById(5L)).thenReturn(Optional.of(payment));
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        paymentService.processRefund(5L, "changed plans");
 
+        verify(bookingService).releaseBookedSeats(booking);
+        assertThat(booking.getStatus()).isEqualTo(Booking.BookingStatus.CANCELLED);
+    }
+}
@@ -0,0 +1,74 @@
+package com.busticket.service;
+
+import com.busticket.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PendingBookingReaperTest {
+
+    @Mock private BookingRepository bookingRepository;
+    @Mock private HoldExpiryService holdExpiryService;
+
+    @InjectMocks private PendingBookingReaper reaper;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(reaper, "seatHoldTimeoutMs", 300000L);
+        ReflectionTestUtils.setField(reaper, "batchSize", 2);
+        ReflectionTestUtils.setField(reaper, "timeBudgetMs", 10000L);
+    }
+
+    @Test
+    void reapExpiredBookings_pagesByKeysetAndGroupsByTrip() {
+        when(bookingRepository.findExpiredPendingBookingRefs(any(), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(new Object[]{1L, 10L}, new Object[]{2L, 20L}));
+        when(bookingRepository.findExpiredPendingBookingRefs(any(), eq(2L), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{5L, 10L}));
+        when(holdExpiryService.expireBookings(any(), any())).thenReturn(List.of());
+
+        int reaped = reaper.reapExpiredBookings();
+
+        assertThat(reaped).isEqualTo(3);
+        verify(holdExpiryService).expireBookings(10L, List.of(1L));
+        verify(holdExpiryService).expireBookings(20L, List.of(2L));
+        verify(holdExpiryService).expireBookings(10L, List.of(5L));
+        verify(bookingRepository, never()).findExpiredPendingBookingRefs(any(), eq(5L), any(Pageable.class));
+    }
+
+    @Test
+    void reapExpiredBookings_releasesEveryLegOfAJourney() {
+        when(bookingRepository.findExpiredPendingBookingRefs(any(), eq(0L), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 10L}));
+        when(bookingRepository.findSeatTripIdsByBookingIds(List.of(1L)))
+                .thenReturn(List.of(new Object[]{1L, 10L}, new Object[]{1L, 30L}));
+        when(holdExpiryService.expireBookings(10L, List.of(1L))).thenReturn(List.of());
+        when(holdExpiryService.expireBookings(30L, List.of(1L))).thenReturn(List.of(1L));
+
+        // The second leg failed, so the booking is not counted and stays for the next run
+        assertThat(reaper.reapExpiredBookings()).isZero();
+        verify(holdExpiryService).expireBookings(10L, List.of(1L));
+        verify(holdExpiryService).expireBookings(30L, List.of(1L));
+    }
+
+    @Test
+    void reapExpiredBookings_stopsWhenTimeBudgetIsSpent() {
+        ReflectionTestUtils.setField(reaper, "timeBudgetMs", 0L);
+
+        assertThat(reaper.reapExpiredBookings()).isZero();
+        verifyNoInteractions(bookingRepository, holdExpiryService);
+        assertThat(reaper.getStats().get("lastRun")).hasFieldOrPropertyWithValue("completed", false);
+    }
+}
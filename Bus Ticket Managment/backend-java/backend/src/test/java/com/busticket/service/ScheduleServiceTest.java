@@ -0,0 +1,121 @@
+package com.busticket.service;
+
+import com.busticket.dto.ScheduleRequest;
+import com.busticket.model.Bus;
+import com.busticket.model.Route;
+import com.busticket.model.Trip;
+import com.busticket.repository.TripBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ScheduleServiceTest {
+
+    private final ScheduleService scheduleService = new ScheduleService(1);
+
+    @Test
+    void expandSchedules_createsOneTripPerMatchingDay() {
+        ReflectionTestUtils.setField(scheduleService, "maxDays", 366);
+        Route route = new Route();
+        route.setId(1L);
+        Bus bus = new Bus();
+        bus.setId(2L);
+        bus.setTotalSeats(40);
+
+        // 2024-01-01 is a Monday; two weeks contain two Mondays and two Fridays
+        ScheduleRequest schedule = new ScheduleRequest(1L, 2L, LocalTime.of(8, 30), LocalTime.of(12, 0),
+                BigDecimal.valueOf(500), Set.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY),
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 14));
+
+        List<Trip> trips = scheduleService.expandSchedules(List.of(schedule, schedule), Map.of(1L, route), Map.of(2L, bus));
+
+        assertThat(trips).extracting(Trip::getTripDate).containsExactly(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 5), LocalDate.of(2024, 1, 8), LocalDate.of(2024, 1, 12));
+        assertThat(trips.get(0).getTripCode()).isEqualTo("TRIP-20240101-0830-B2");
+        assertThat(trips.get(0).getAvailableSeats()).isEqualTo(40);
+        scheduleService.shutdown();
+    }
+
+    @Test
+    void expandSchedules_rejectsSameBusOnTwoRoutesAtOnce() {
+        ReflectionTestUtils.setField(scheduleService, "maxDays", 366);
+        Route first = new Route();
+        first.setId(1L);
+        Route second = new Route();
+        second.setId(3L);
+        Bus bus = new Bus();
+        bus.setId(2L);
+        ScheduleRequest schedule = new ScheduleRequest(1L, 2L, LocalTime.of(8, 30), LocalTime.of(12, 0),
+                BigDecimal.TEN, Set.of(DayOfWeek.MONDAY), LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2));
+        ScheduleRequest other = new ScheduleRequest(3L, 2L, LocalTime.of(8, 30), LocalTime.of(12, 0),
+                BigDecimal.TEN, Set.of(DayOfWeek.MONDAY), LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2));
+
+        assertThrows(RuntimeException.class, () -> scheduleService.expandSchedules(List.of(schedule, other),
+                Map.of(1L, first, 3L, second), Map.of(2L, bus)));
+        scheduleService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void insertChunk_skipsCodesInsertedByAnOverlappingJob() {
+        TripBatchRepository tripBatchRepository = mock(TripBatchRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        ReflectionTestUtils.setField(scheduleService, "tripBatchRepository", tripBatchRepository);
+        ReflectionTestUtils.setField(scheduleService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(scheduleService, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(scheduleService, "seatMaterialization", "lazy");
+
+        Route route = new Route();
+        route.setId(1L);
+        route.setSource("Pune");
+        route.setDestination("Goa");
+        Trip monday = new Trip(new Bus(), route, LocalDate.of(2024, 1, 1), LocalTime.of(8, 30), LocalTime.of(12, 0), BigDecimal.TEN);
+        monday.setTripCode("TRIP-20240101-0830-B2");
+        Trip tuesday = new Trip(new Bus(), route, LocalDate.of(2024, 1, 2), LocalTime.of(8, 30), LocalTime.of(12, 0), BigDecimal.TEN);
+        tuesday.setTripCode("TRIP-20240102-0830-B2");
+        // The other job commits Monday between this chunk's check and its insert
+        when(tripBatchRepository.findIdsByTripCodes(anyCollection()))
+                .thenReturn(Map.of())
+                .thenReturn(Map.of("TRIP-20240101-0830-B2", 7L));
+        doThrow(new DuplicateKeyException("trip_code")).doNothing().when(tripBatchRepository).insertTrips(anyList());
+
+        ScheduleJob job = new ScheduleJob(2, 1);
+        scheduleService.insertChunk(job, List.of(monday, tuesday));
+
+        verify(tripBatchRepository).insertTrips(List.of(tuesday));
+        assertThat(job.toMap()).containsEntry("createdTrips", 1).containsEntry("skippedTrips", 1)
+                .containsEntry("failedTrips", 0);
+        scheduleService.shutdown();
+    }
+
+    @Test
+    void expandSchedules_rejectsUnknownBus() {
+        Route route = new Route();
+        route.setId(1L);
+        ScheduleRequest schedule = new ScheduleRequest(1L, 9L, LocalTime.of(8, 30), LocalTime.of(12, 0),
+                BigDecimal.TEN, Set.of(DayOfWeek.MONDAY), LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2));
+
+        assertThrows(RuntimeException.class,
+                () -> scheduleService.expandSchedules(List.of(schedule), Map.of(1L, route), Map.of()));
+        scheduleService.shutdown();
+    }
+}
@@ -0,0 +1,53 @@
+package com.busticket.service;
+
+import com.busticket.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SeatCountReconcilerTest {
+
+    @Mock private TripRepository tripRepository;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    @InjectMocks private SeatCountReconciler reconciler;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(reconciler, "rangeSize", 10);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    void reconcile_walksIdRangesAndSumsCorrections() {
+        when(tripRepository.findIdRangeFromDate(any())).thenReturn(List.<Object[]>of(new Object[]{5L, 27L}));
+        when(tripRepository.reconcileAvailableSeats(any(), any(), eq(5L), eq(14L))).thenReturn(2);
+        when(tripRepository.reconcileAvailableSeats(any(), any(), eq(15L), eq(24L))).thenThrow(new RuntimeException("deadlock"));
+        when(tripRepository.reconcileAvailableSeats(any(), any(), eq(25L), eq(27L))).thenReturn(1);
+
+        assertThat(reconciler.reconcile()).isEqualTo(3);
+        verify(tripRepository, times(3)).reconcileAvailableSeats(any(), any(), any(), any());
+        assertThat(reconciler.getStats().get("correctedTrips")).isEqualTo(3L);
+    }
+
+    @Test
+    void reconcile_noUpcomingTrips() {
+        when(tripRepository.findIdRangeFromDate(any())).thenReturn(List.<Object[]>of(new Object[]{null, null}));
+
+        assertThat(reconciler.reconcile()).isZero();
+        verify(tripRepository, never()).reconcileAvailableSeats(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,124 @@
+package com.busticket.service;
+
+import com.busticket.model.Bus;
+import com.busticket.model.Trip;
+import com.busticket.repository.SeatRepository;
+import com.busticket.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SeatInventoryServiceTest {
+
+    @Mock private SeatRepository seatRepository;
+    @Mock private TripRepository tripRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private SeatCountReconciler seatCountReconciler;
+
+    @InjectMocks private SeatInventoryService seatInventoryService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        Bus bus = new Bus();
+        bus.setTotalSeats(10);
+        Trip trip = new Trip();
+        trip.setId(1L);
+        trip.setBus(bus);
+        when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+        when(seatRepository.findByTripId(1L)).thenReturn(List.of());
+    }
+
+    @Test
+    void holdSeats_comparesAgainstLatestCommittedVersion_notSnapshot() {
+        loadTrip(SeatStateCodec.empty(10), 4L);
+        // The transaction's snapshot still shows version 3; the latest committed one is 4
+        when(tripRepository.findSeatStateById(1L)).thenReturn(row(SeatStateCodec.empty(10), 3L));
+        when(tripRepository.findSeatStateForUpdate(1L)).thenReturn(row(SeatStateCodec.empty(10), 4L));
+        when(tripRepository.updateSeatState(eq(1L), any(), eq(4L))).thenReturn(1);
+        when(tripRepository.updateSeatState(eq(1L), any(), eq(3L))).thenReturn(0);
+
+        seatInventoryService.holdSeats(1L, List.of(2), LocalDateTime.now().plusMinutes(5));
+
+        verify(tripRepository).updateSeatState(eq(1L), any(), eq(4L));
+        verify(tripRepository, never()).updateSeatState(anyLong(), any(), eq(3L));
+    }
+
+    @Test
+    void holdSeats_countsOnlySeatsNotAlreadyTakenByLapsedHolds() {
+        when(tripRepository.findSeatStateForUpdate(1L)).thenReturn(row(SeatStateCodec.empty(10), 0L));
+        when(tripRepository.updateSeatState(eq(1L), any(), eq(0L))).thenReturn(1);
+        when(seatRepository.countLapsedHolds(eq(1L), eq(List.of(2, 3)), any())).thenReturn(1L);
+        when(tripRepository.decrementAvailableSeats(1L, 1)).thenReturn(1);
+
+        seatInventoryService.holdSeats(1L, List.of(2, 3), LocalDateTime.now().plusMinutes(5));
+
+        verify(tripRepository).decrementAvailableSeats(1L, 1);
+        verifyNoInteractions(seatCountReconciler);
+    }
+
+    @Test
+    void holdSeats_reconcilesTrip_whenCounterHadDrifted() {
+        when(tripRepository.findSeatStateForUpdate(1L)).thenReturn(row(SeatStateCodec.empty(10), 0L));
+        when(tripRepository.updateSeatState(eq(1L), any(), eq(0L))).thenReturn(1);
+        when(tripRepository.decrementAvailableSeats(1L, 2)).thenReturn(0);
+
+        seatInventoryService.holdSeats(1L, List.of(2, 3), LocalDateTime.now().plusMinutes(5));
+
+        verify(seatCountReconciler).reconcileTrip(1L);
+    }
+
+    @Test
+    void holdSeats_reloadsInventory_whenAnotherInstanceWroteSeatState() {
+        loadTrip(SeatStateCodec.empty(10), 4L);
+        seatInventoryService.getInventory(1L);
+        // Another instance has since held seat 2
+        byte[] written = SeatStateCodec.empty(10);
+        SeatStateCodec.set(written, 2, SeatStateCodec.HELD);
+        when(tripRepository.findSeatStateForUpdate(1L)).thenReturn(row(written, 5L));
+
+        assertThatThrownBy(() -> seatInventoryService.holdSeats(1L, List.of(2), LocalDateTime.now().plusMinutes(5)))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        verify(tripRepository, never()).updateSeatState(anyLong(), any(), anyLong());
+
+        // The retry loads the trip again and sees the seat taken
+        loadTrip(written, 5L);
+        List<Object[]> seatRefs = new ArrayList<>();
+        seatRefs.add(new Object[]{12L, 2, LocalDateTime.now().plusMinutes(5)});
+        when(seatRepository.findSeatRefsByTripId(1L)).thenReturn(seatRefs);
+        assertThatThrownBy(() -> seatInventoryService.holdSeats(1L, List.of(2), LocalDateTime.now().plusMinutes(5)))
+                .hasMessageContaining("Seat 2 is not available");
+    }
+
+    private void loadTrip(byte[] seatState, Long version) {
+        Bus bus = new Bus();
+        bus.setTotalSeats(10);
+        Trip trip = new Trip();
+        trip.setId(1L);
+        trip.setBus(bus);
+        trip.setSeatState(seatState);
+        trip.setSeatStateVersion(version);
+        when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+    }
+
+    private static List<Object[]> row(byte[] seatState, Long version) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{seatState, version});
+        return rows;
+    }
+}
@@ -0,0 +1,48 @@
+package com.busticket.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeatStateCodecTest {
+
+    @Test
+    void setAndGet_roundTripEverySeat() {
+        byte[] state = SeatStateCodec.empty(41);
+        for (int seat = 1; seat <= 41; seat++) {
+            SeatStateCodec.set(state, seat, seat % 4);
+        }
+
+        assertThat(state).hasSize(11);
+        for (int seat = 1; seat <= 41; seat++) {
+            assertThat(SeatStateCodec.get(state, seat)).isEqualTo(seat % 4);
+        }
+    }
+
+    @Test
+    void count_ignoresPaddingBeyondCapacity() {
+        byte[] state = SeatStateCodec.empty(45);
+        SeatStateCodec.set(state, 1, SeatStateCodec.BOOKED);
+        SeatStateCodec.set(state, 40, SeatStateCodec.HELD);
+        SeatStateCodec.set(state, 45, SeatStateCodec.BLOCKED);
+
+        assertThat(SeatStateCodec.count(state, 45, SeatStateCodec.AVAILABLE)).isEqualTo(42);
+        assertThat(SeatStateCodec.count(state, 45, SeatStateCodec.BOOKED)).isEqualTo(1);
+        assertThat(SeatStateCodec.count(state, 45, SeatStateCodec.HELD)).isEqualTo(1);
+        assertThat(SeatStateCodec.count(state, 45, SeatStateCodec.BLOCKED)).isEqualTo(1);
+    }
+
+    @Test
+    void inventory_packsItsState() {
+        TripSeatInventory inventory = new TripSeatInventory(1L, 6);
+        inventory.tryHold(java.util.List.of(2), 5_000L, 1_000L);
+        inventory.confirm(java.util.List.of(2));
+        inventory.tryHold(java.util.List.of(5), 5_000L, 1_000L);
+
+        byte[] state = inventory.toSeatState(1_000L);
+
+        assertThat(SeatStateCodec.get(state, 2)).isEqualTo(SeatStateCodec.BOOKED);
+        assertThat(SeatStateCodec.get(state, 5)).isEqualTo(SeatStateCodec.HELD);
+        assertThat(SeatStateCodec.count(state, 6, SeatStateCodec.AVAILABLE)).isEqualTo(4);
+    }
+}
@@ -0,0 +1,78 @@
+package com.busticket.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class SeatStreamServiceTest {
+
+    @Mock private SeatInventoryService seatInventoryService;
+
+    @InjectMocks private SeatStreamService seatStreamService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(seatStreamService, "maxSubscribers", 3);
+        ReflectionTestUtils.setField(seatStreamService, "maxSubscribersPerTrip", 2);
+        ReflectionTestUtils.setField(seatStreamService, "timeoutMs", 60000L);
+        ReflectionTestUtils.setField(seatStreamService, "heartbeatMs", 60000L);
+        when(seatInventoryService.getInventory(anyLong()))
+                .thenAnswer(inv -> new TripSeatInventory(inv.getArgument(0), 10));
+    }
+
+    @Test
+    void flush_coalescesChangesIntoOneEventPerSubscriber() {
+        seatStreamService.subscribe(1L);
+        seatStreamService.subscribe(1L);
+
+        seatStreamService.onSeatStateChanged(new SeatStateChangedEvent(1L, List.of(3, 4), SeatStateCodec.HELD));
+        seatStreamService.onSeatStateChanged(new SeatStateChangedEvent(1L, List.of(3), SeatStateCodec.BOOKED));
+        seatStreamService.onSeatStateChanged(new SeatStateChangedEvent(2L, List.of(5), SeatStateCodec.HELD));
+        seatStreamService.flush();
+        seatStreamService.flush();
+
+        // Two snapshots, then one delta per subscriber
+        assertThat(seatStreamService.getStats())
+                .containsEntry("subscribers", 2)
+                .containsEntry("sentEvents", 4L)
+                .containsEntry("coalescedChanges", 1L);
+    }
+
+    @Test
+    void subscribe_keepsChangesMadeWhileTheSnapshotIsRead() {
+        when(seatInventoryService.getInventory(1L)).thenAnswer(inv -> {
+            // Committed and flushed after the subscriber registered, before its snapshot is sent
+            seatStreamService.onSeatStateChanged(new SeatStateChangedEvent(1L, List.of(3), SeatStateCodec.HELD));
+            seatStreamService.flush();
+            return new TripSeatInventory(1L, 10);
+        });
+
+        seatStreamService.subscribe(1L);
+
+        // The snapshot, then the delta held back for it
+        assertThat(seatStreamService.getStats())
+                .containsEntry("subscribers", 1)
+                .containsEntry("sentEvents", 2L);
+    }
+
+    @Test
+    void subscribe_enforcesSubscriberLimits() {
+        seatStreamService.subscribe(1L);
+        seatStreamService.subscribe(1L);
+        assertThatThrownBy(() -> seatStreamService.subscribe(1L)).hasMessageContaining("for this trip");
+
+        seatStreamService.subscribe(2L);
+        assertThatThrownBy(() -> seatStreamService.subscribe(3L)).hasMessageContaining("Too many");
+        assertThat(seatStreamService.getStats()).containsEntry("subscribers", 3);
+    }
+}
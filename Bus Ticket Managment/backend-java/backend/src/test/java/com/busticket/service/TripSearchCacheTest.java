@@ -0,0 +1,79 @@
+package com.busticket.service;
+
+import com.busticket.dto.TripSearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TripSearchCacheTest {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 15);
+
+    private final TripSearchCache cache = new TripSearchCache(5, 60000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_servesRepeatedSearchesFromCache_ignoringCase() {
+        cache.get("Pune", "Goa", DATE, loader(2));
+        List<TripSearchResult> cached = cache.get(" pune", "GOA", DATE, loader(2));
+
+        assertThat(cached).hasSize(2);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getStats().get("hits")).isEqualTo(1L);
+    }
+
+    @Test
+    void tripChange_evictsOnlyThatRouteAndDate() {
+        cache.get("Pune", "Goa", DATE, loader(1));
+        cache.get("Pune", "Goa", DATE.plusDays(1), loader(1));
+
+        cache.onTripChanged(new TripChangedEvent("Pune", "Goa", DATE));
+        cache.get("Pune", "Goa", DATE, loader(1));
+        cache.get("Pune", "Goa", DATE.plusDays(1), loader(1));
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void loadThatRacedWithInvalidation_isNotStored() {
+        cache.get("Pune", "Goa", DATE, () -> {
+            cache.onTripChanged(new TripChangedEvent("Pune", "Goa", DATE));
+            return loader(1).get();
+        });
+        cache.get("Pune", "Goa", DATE, loader(1));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed_whenResultBudgetIsExceeded() {
+        cache.get("A", "B", DATE, loader(2));
+        cache.get("C", "D", DATE, loader(2));
+        cache.get("A", "B", DATE, loader(2));
+        cache.get("E", "F", DATE, loader(2));
+
+        assertThat(cache.getStats().get("cachedResults")).isEqualTo(4);
+        cache.get("A", "B", DATE, loader(2));
+        assertThat(loads.get()).isEqualTo(3);
+        cache.get("C", "D", DATE, loader(2));
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    private Supplier<List<TripSearchResult>> loader(int results) {
+        return () -> {
+            loads.incrementAndGet();
+            List<TripSearchResult> trips = new ArrayList<>();
+            for (int i = 0; i < results; i++) {
+                trips.add(new TripSearchResult((long) i, null, DATE, null, null, null, 40, null,
+                        null, null, null, null, null, null, null, null, null, null, null));
+            }
+            return trips;
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package com.busticket.service;
+
+import com.busticket.repository.TripSearchIndexRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class TripSearchIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 15);
+
+    @Mock private TripSearchIndexRepository tripSearchIndexRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private TripSearchIndex tripSearchIndex;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        tripSearchIndex = new TripSearchIndex(transactionManager);
+        ReflectionTestUtils.setField(tripSearchIndex, "tripSearchIndexRepository", tripSearchIndexRepository);
+    }
+
+    @Test
+    void tripChange_recopiesOnlyThatRouteAndDate_underNormalizedKeys() {
+        tripSearchIndex.onTripChanged(new TripChangedEvent(" Pune", "GOA ", DATE));
+
+        InOrder order = inOrder(tripSearchIndexRepository);
+        order.verify(tripSearchIndexRepository).deleteRouteDate("pune", "goa", DATE);
+        order.verify(tripSearchIndexRepository).insertRouteDate("pune", "goa", DATE);
+        verify(tripSearchIndexRepository, never()).deleteAllEntries();
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void allTripsChange_rebuildsTable() {
+        tripSearchIndex.onTripChanged(TripChangedEvent.allTrips());
+
+        verify(tripSearchIndexRepository).deleteAllEntries();
+        verify(tripSearchIndexRepository).insertFromDate(LocalDate.now());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void seatChanges_areFlushedInOneBatch_andRetriedAfterFailure() {
+        tripSearchIndex.onSeatStateChanged(new SeatStateChangedEvent(1L, List.of(3), SeatStateCodec.BOOKED));
+        tripSearchIndex.onSeatStateChanged(new SeatStateChangedEvent(2L, List.of(4), SeatStateCodec.BOOKED));
+        tripSearchIndex.onSeatStateChanged(new SeatStateChangedEvent(1L, List.of(5), SeatStateCodec.AVAILABLE));
+        when(tripSearchIndexRepository.refreshFreeSeats(anyCollection()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(2);
+
+        tripSearchIndex.flushSeatChanges();
+        tripSearchIndex.flushSeatChanges();
+        tripSearchIndex.flushSeatChanges();
+
+        verify(tripSearchIndexRepository, times(2)).refreshFreeSeats(argThat(ids ->
+                ((Collection<Long>) ids).size() == 2 && ids.containsAll(List.of(1L, 2L))));
+        assertThat(tripSearchIndex.getStats().get("pendingSeatChanges")).isEqualTo(0);
+    }
+}
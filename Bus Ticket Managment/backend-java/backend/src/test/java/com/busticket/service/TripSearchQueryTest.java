@@ -0,0 +1,100 @@
+package com.busticket.service;
+
+import com.busticket.dto.TripSearchPage;
+import com.busticket.dto.TripSearchRequest;
+import com.busticket.dto.TripSearchResult;
+import com.busticket.model.Bus;
+import com.busticket.model.Trip;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TripSearchQueryTest {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 15);
+
+    private final List<TripSearchResult> trips = List.of(
+            trip(1L, "06:00", "12:00", 500, 10, Bus.BusType.AC_SLEEPER),
+            trip(2L, "09:00", "11:00", 300, 1, Bus.BusType.AC_SEATER),
+            trip(3L, "13:00", "16:00", 300, 20, Bus.BusType.NON_AC_SEATER),
+            trip(4L, "22:00", "05:00", 700, 5, Bus.BusType.AC_SLEEPER));
+
+    @Test
+    void apply_filtersBySeatsBusTypeWindowAndFare() {
+        TripSearchRequest request = request();
+        request.setPassengers(2);
+        request.setDepartureFrom(LocalTime.of(5, 0));
+        request.setDepartureTo(LocalTime.of(14, 0));
+        request.setMaxFare(BigDecimal.valueOf(500));
+
+        TripSearchPage page = new TripSearchQuery(request, 100).apply(trips);
+        assertThat(ids(page)).containsExactly(1L, 2L, 3L);
+        // Trip 2 has one seat left: listed, but sold out for two passengers
+        assertThat(page.getTrips()).extracting(TripSearchResult::isSoldOut).containsExactly(false, true, false);
+
+        request.setBusType("ac_sleeper");
+        assertThat(ids(new TripSearchQuery(request, 100).apply(trips))).containsExactly(1L);
+    }
+
+    @Test
+    void apply_sortsByFareOrDuration() {
+        TripSearchRequest request = request();
+        request.setSortBy("fare");
+        request.setSortOrder("DESC");
+        assertThat(ids(new TripSearchQuery(request, 100).apply(trips))).containsExactly(4L, 1L, 2L, 3L);
+
+        request.setSortBy("duration");
+        request.setSortOrder("ASC");
+        assertThat(ids(new TripSearchQuery(request, 100).apply(trips))).containsExactly(2L, 3L, 1L, 4L);
+    }
+
+    @Test
+    void apply_pagesWithKeysetCursor() {
+        TripSearchRequest request = request();
+        request.setSortBy("fare");
+        request.setLimit(2);
+
+        TripSearchPage first = new TripSearchQuery(request, 100).apply(trips);
+        assertThat(ids(first)).containsExactly(2L, 3L);
+
+        // A trip added before the cursor does not shift the next page
+        request.setAfter(first.getNextCursor());
+        TripSearchPage second = new TripSearchQuery(request, 100)
+                .apply(List.of(trips.get(0), trips.get(1), trips.get(2), trips.get(3),
+                        trip(5L, "07:00", "09:00", 100, 30, Bus.BusType.AC_SEATER)));
+        assertThat(ids(second)).containsExactly(1L, 4L);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsUnknownBusTypeAndSortKey() {
+        TripSearchRequest request = request();
+        request.setBusType("HOVERCRAFT");
+        assertThrows(RuntimeException.class, () -> new TripSearchQuery(request, 100));
+
+        TripSearchRequest sorted = request();
+        sorted.setSortBy("seats");
+        assertThrows(RuntimeException.class, () -> new TripSearchQuery(sorted, 100));
+    }
+
+    private static TripSearchRequest request() {
+        return new TripSearchRequest("Pune", "Goa", DATE);
+    }
+
+    private static List<Long> ids(TripSearchPage page) {
+        return page.getTrips().stream().map(TripSearchResult::getId).toList();
+    }
+
+    private static TripSearchResult trip(Long id, String departs, String arrives, int fare, int seats, Bus.BusType busType) {
+        return new TripSearchResult(id, "T" + id, DATE, LocalTime.parse(departs), LocalTime.parse(arrives),
+                BigDecimal.valueOf(fare), seats, Trip.TripStatus.SCHEDULED,
+                id, "BUS-" + id, busType, "Operator", 40, null,
+                1L, "Pune", "Goa", 450.0, 600);
+    }
+}
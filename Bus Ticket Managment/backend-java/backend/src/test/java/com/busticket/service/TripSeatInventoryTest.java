@@ -0,0 +1,76 @@
+package com.busticket.service;
+
+import com.busticket.model.Seat;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TripSeatInventoryTest {
+
+    @Test
+    void tryHold_isAllOrNothing() {
+        TripSeatInventory inventory = new TripSeatInventory(1L, 10);
+        long now = 1_000L;
+
+        assertThat(inventory.tryHold(List.of(1, 2), now + 500, now)).isNull();
+        assertThat(inventory.tryHold(List.of(3, 2), now + 500, now)).isEqualTo(2);
+
+        assertThat(inventory.heldCount(now)).isEqualTo(2);
+        assertThat(inventory.availableCount(now)).isEqualTo(8);
+    }
+
+    @Test
+    void expiredHold_becomesAvailableAgain() {
+        TripSeatInventory inventory = new TripSeatInventory(1L, 4);
+        inventory.tryHold(List.of(1), 1_500L, 1_000L);
+
+        assertThat(inventory.tryHold(List.of(1), 3_000L, 2_000L)).isNull();
+        assertThat(inventory.availableCount(2_000L)).isEqualTo(3);
+    }
+
+    @Test
+    void confirmAndRelease_updateCounts() {
+        TripSeatInventory inventory = new TripSeatInventory(1L, 4);
+        inventory.tryHold(List.of(1, 2), 5_000L, 1_000L);
+        inventory.confirm(List.of(1, 2));
+
+        assertThat(inventory.bookedCount()).isEqualTo(2);
+        assertThat(inventory.heldCount(1_000L)).isZero();
+
+        inventory.releaseBookings(List.of(2));
+        assertThat(inventory.availableCount(1_000L)).isEqualTo(3);
+    }
+
+    @Test
+    void allocate_prefersAlignedBlockThatFitsTightest() {
+        TripSeatInventory inventory = new TripSeatInventory(1L, 12);
+        // Free runs: 3-6 (4 seats) and 9-10 (2 seats)
+        inventory.tryHold(List.of(1, 2, 7, 8, 11, 12), 5_000L, 1_000L);
+
+        assertThat(inventory.allocate(2, null, 5_000L, 1_000L)).containsExactly(9, 10);
+        assertThat(inventory.allocate(3, null, 5_000L, 1_000L)).containsExactly(3, 4, 5);
+    }
+
+    @Test
+    void allocate_honoursSeatTypePreference() {
+        TripSeatInventory inventory = new TripSeatInventory(1L, 8);
+        inventory.tryHold(List.of(1), 5_000L, 1_000L);
+
+        // Seat 2 is an aisle seat, seat 3 a window seat
+        assertThat(inventory.allocate(1, Seat.SeatType.WINDOW, 5_000L, 1_000L)).containsExactly(3);
+        assertThat(inventory.allocate(1, Seat.SeatType.AISLE, 5_000L, 1_000L)).containsExactly(2);
+    }
+
+    @Test
+    void allocate_splitsAcrossLongestRunsAndHoldsThem() {
+        TripSeatInventory inventory = new TripSeatInventory(1L, 8);
+        inventory.tryHold(List.of(3, 6), 5_000L, 1_000L);
+
+        // Runs 1-2, 4-5, 7-8: no run of 3
+        assertThat(inventory.allocate(3, null, 5_000L, 1_000L)).containsExactly(1, 2, 4);
+        assertThat(inventory.heldCount(1_000L)).isEqualTo(5);
+        assertThat(inventory.allocate(4, null, 5_000L, 1_000L)).isEmpty();
+    }
+}
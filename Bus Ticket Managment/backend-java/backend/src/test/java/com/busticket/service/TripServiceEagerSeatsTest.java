@@ -0,0 +1,84 @@
+package com.busticket.service;
+
+import com.busticket.model.Bus;
+import com.busticket.model.Route;
+import com.busticket.model.Trip;
+import com.busticket.repository.BusRepository;
+import com.busticket.repository.RouteRepository;
+import com.busticket.repository.SeatRepository;
+import com.busticket.repository.TripRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Eager seat materialization against the real repositories: the trip, its seat rows and its
+ * counter are written in one transaction.
+ */
+@SpringBootTest(properties = "app.seat-materialization=eager")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class TripServiceEagerSeatsTest {
+
+    @Autowired private TripService tripService;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createTrip_writesSeatsAndCounter_forBusGivenById() {
+        Trip created = tripService.createTrip(newTrip("EAGER-1", 1));
+
+        assertThat(seatRepository.findByTripId(created.getId())).hasSize(12);
+        assertThat(availableSeats(created.getId())).isEqualTo(12);
+    }
+
+    @Test
+    void initSeats_writesSeatsAndCounter_forTripWithoutCounter() {
+        Trip trip = newTrip("EAGER-2", 2);
+        trip.setBus(busRepository.findById(trip.getBus().getId()).orElseThrow());
+        Long tripId = tripRepository.save(trip).getId();
+        jdbcTemplate.update("UPDATE trips SET available_seats = NULL WHERE id = ?", tripId);
+
+        tripService.initSeats(tripId);
+
+        assertThat(seatRepository.findByTripId(tripId)).hasSize(12);
+        assertThat(availableSeats(tripId)).isEqualTo(12);
+    }
+
+    // A trip as the API receives it: the bus is named by id only
+    private Trip newTrip(String busNumber, int daysAhead) {
+        Bus bus = new Bus();
+        bus.setBusNumber(busNumber);
+        bus.setBusType(Bus.BusType.AC_SEATER);
+        bus.setOperatorName("Eager Lines");
+        bus.setTotalSeats(12);
+        Bus requested = new Bus();
+        requested.setId(busRepository.save(bus).getId());
+
+        Route route = new Route();
+        route.setSource("Eager A");
+        route.setDestination("Eager B");
+        route.setDistance(100.0);
+        route.setDuration(120);
+        route = routeRepository.save(route);
+
+        return new Trip(requested, route, LocalDate.now().plusDays(daysAhead), LocalTime.of(10, 0),
+                LocalTime.of(12, 0), BigDecimal.TEN);
+    }
+
+    private Integer availableSeats(Long tripId) {
+        return jdbcTemplate.queryForObject("SELECT available_seats FROM trips WHERE id = ?", Integer.class, tripId);
+    }
+}
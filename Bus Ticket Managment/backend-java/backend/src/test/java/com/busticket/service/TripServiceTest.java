@@ -0,0 +1,85 @@
+package com.busticket.service;
+
+import com.busticket.model.Bus;
+import com.busticket.model.Trip;
+import com.busticket.repository.BusRepository;
+import com.busticket.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class TripServiceTest {
+
+    @Mock
+    private TripRepository tripRepository;
+
+    @Mock
+    private BusRepository busRepository;
+
+    @InjectMocks
+    private TripService tripService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(tripService, "maxCalendarDays", 7);
+    }
+
+    @Test
+    void createTrip_setsCounterFromStoredBus() {
+        Bus stored = new Bus();
+        stored.setId(3L);
+        stored.setTotalSeats(36);
+        when(busRepository.findById(3L)).thenReturn(Optional.of(stored));
+        when(tripRepository.save(any(Trip.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Bus requested = new Bus();
+        requested.setId(3L);
+        Trip trip = new Trip();
+        trip.setBus(requested);
+
+        Trip created = tripService.createTrip(trip);
+
+        assertThat(created.getBus()).isSameAs(stored);
+        assertThat(created.getAvailableSeats()).isEqualTo(36);
+    }
+
+    @Test
+    void getFareCalendar_fillsDaysWithoutTrips() {
+        LocalDate date = LocalDate.now().plusDays(10);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{date.minusDays(1), BigDecimal.valueOf(450), 3L, 2L, 61L});
+        rows.add(new Object[]{date.plusDays(1), null, 1L, 0L, 0L});
+        when(tripRepository.findFareCalendar("Pune", "Goa", date.minusDays(2), date.plusDays(2), 2)).thenReturn(rows);
+
+        List<Map<String, Object>> calendar = tripService.getFareCalendar("Pune", "Goa", date, 2, 2);
+
+        assertThat(calendar).hasSize(5);
+        assertThat(calendar.get(1)).containsEntry("cheapestFare", BigDecimal.valueOf(450))
+                .containsEntry("trips", 3).containsEntry("availableTrips", 2).containsEntry("seatsLeft", 61);
+        assertThat(calendar.get(2)).containsEntry("date", date).containsEntry("trips", 0);
+        assertThat(calendar.get(3)).containsEntry("cheapestFare", null).containsEntry("trips", 1);
+    }
+
+    @Test
+    void getFareCalendar_startsToday_andLimitsWindow() {
+        LocalDate today = LocalDate.now();
+        when(tripRepository.findFareCalendar("Pune", "Goa", today, today.plusDays(3), 1)).thenReturn(List.of());
+
+        assertThat(tripService.getFareCalendar("Pune", "Goa", today, 3, 1)).hasSize(4);
+        assertThrows(RuntimeException.class, () -> tripService.getFareCalendar("Pune", "Goa", today, 8, 1));
+    }
+}
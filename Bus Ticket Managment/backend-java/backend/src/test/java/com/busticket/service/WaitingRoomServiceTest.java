@@ -0,0 +1,89 @@
+package com.busticket.service;
+
+import com.busticket.repository.TripRepository;
+import com.busticket.security.QueueTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+class WaitingRoomServiceTest {
+
+    @Mock private TripRepository tripRepository;
+    @Mock private SeatInventoryService seatInventoryService;
+
+    private WaitingRoomService waitingRoomService;
+    private TripSeatInventory inventory;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        waitingRoomService = new WaitingRoomService();
+        ReflectionTestUtils.setField(waitingRoomService, "tripRepository", tripRepository);
+        ReflectionTestUtils.setField(waitingRoomService, "seatInventoryService", seatInventoryService);
+        ReflectionTestUtils.setField(waitingRoomService, "queueTokenProvider",
+                new QueueTokenProvider("test-secret-that-is-long-enough-for-hs512"));
+        ReflectionTestUtils.setField(waitingRoomService, "tickMs", 1000L);
+        ReflectionTestUtils.setField(waitingRoomService, "queueTokenTtlMs", 60000L);
+        ReflectionTestUtils.setField(waitingRoomService, "admissionTtlMs", 60000L);
+        inventory = new TripSeatInventory(1L, 2);
+        when(seatInventoryService.getInventory(1L)).thenReturn(inventory);
+        when(tripRepository.existsById(1L)).thenReturn(true);
+    }
+
+    @Test
+    void join_admitsAtRoomRate() {
+        waitingRoomService.open(1L, 2);
+
+        assertThat(waitingRoomService.join(1L, "a@x.com").get("admitted")).isEqualTo(true);
+        assertThat(waitingRoomService.join(1L, "b@x.com").get("admitted")).isEqualTo(true);
+        Map<String, Object> third = waitingRoomService.join(1L, "c@x.com");
+        Map<String, Object> fourth = waitingRoomService.join(1L, "d@x.com");
+        assertThat(third.get("position")).isEqualTo(1L);
+        assertThat(fourth.get("position")).isEqualTo(2L);
+        assertThat(fourth.get("etaSeconds")).isEqualTo(1L);
+        assertThat(fourth).doesNotContainKey("admissionToken");
+
+        waitingRoomService.admit();
+
+        Map<String, Object> status = waitingRoomService.getStatus(1L, (String) fourth.get("queueToken"), "d@x.com");
+        assertThat(status.get("admitted")).isEqualTo(true);
+        waitingRoomService.checkAdmission(1L, (String) status.get("admissionToken"), "d@x.com");
+    }
+
+    @Test
+    void checkAdmission_rejectsMissingOrForeignTokens() {
+        waitingRoomService.open(1L, 1);
+        Map<String, Object> admitted = waitingRoomService.join(1L, "a@x.com");
+
+        assertThatThrownBy(() -> waitingRoomService.checkAdmission(1L, null, "a@x.com"))
+                .hasMessageContaining("join the queue");
+        assertThatThrownBy(() -> waitingRoomService.checkAdmission(1L, (String) admitted.get("admissionToken"), "b@x.com"))
+                .hasMessage("Invalid queue token");
+        assertThatThrownBy(() -> waitingRoomService.checkAdmission(1L, (String) admitted.get("queueToken"), "a@x.com"))
+                .hasMessage("Invalid queue token");
+    }
+
+    @Test
+    void soldOutTrip_isTurnedAwayWithoutQueueing() {
+        waitingRoomService.open(1L, 10);
+        inventory.tryHold(List.of(1, 2), System.currentTimeMillis() + 60000, System.currentTimeMillis());
+
+        assertThatThrownBy(() -> waitingRoomService.join(1L, "a@x.com")).hasMessage("This trip is sold out");
+        assertThat(waitingRoomService.getStats().get("turnedAway")).isEqualTo(1L);
+    }
+
+    @Test
+    void tripWithoutRoom_isNotGated() {
+        waitingRoomService.checkAdmission(2L, null, null);
+        assertThat(waitingRoomService.join(2L, "a@x.com").get("waitingRoom")).isEqualTo(false);
+    }
+}
@@ -0,0 +1,92 @@
+package com.busticket.service;
+
+import com.busticket.dto.BookingRequest;
+import com.busticket.dto.WaitlistRequest;
+import com.busticket.model.Booking;
+import com.busticket.model.Bus;
+import com.busticket.model.Route;
+import com.busticket.model.Trip;
+import com.busticket.model.User;
+import com.busticket.model.WaitlistEntry;
+import com.busticket.repository.BookingRepository;
+import com.busticket.repository.BusRepository;
+import com.busticket.repository.RouteRepository;
+import com.busticket.repository.UserRepository;
+import com.busticket.repository.WaitlistRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A cancellation hands its seats to the waitlist once it has committed, on the cancelling thread.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class WaitlistPromotionTest {
+
+    @Autowired private BookingService bookingService;
+    @Autowired private WaitlistService waitlistService;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private WaitlistRepository waitlistRepository;
+
+    @Test
+    void cancelBooking_promotesWaitingEntry() {
+        Long tripId = createTrip();
+        Long buyer = createUser("buyer@example.com", "9000000011");
+        Long waiter = createUser("waiter@example.com", "9000000012");
+        Booking sold = bookingService.holdSeats(new BookingRequest(buyer, tripId, List.of(1, 2, 3, 4), BigDecimal.TEN));
+        bookingService.confirmBooking(sold.getId());
+        Long entryId = waitlistService.join(new WaitlistRequest(waiter, tripId, 2)).getId();
+
+        Booking cancelled = bookingService.cancelBooking(sold.getId(), "Plans changed");
+
+        assertThat(cancelled.getStatus()).isEqualTo(Booking.BookingStatus.CANCELLED);
+        WaitlistEntry entry = waitlistRepository.findById(entryId).orElseThrow();
+        assertThat(entry.getStatus()).isEqualTo(WaitlistEntry.WaitlistStatus.PROMOTED);
+        Booking promoted = bookingRepository.findDetailedById(entry.getBooking().getId()).orElseThrow();
+        assertThat(promoted.getStatus()).isEqualTo(Booking.BookingStatus.PENDING);
+        assertThat(promoted.getBookingSeats()).hasSize(2);
+    }
+
+    private Long createTrip() {
+        Bus bus = new Bus();
+        bus.setBusNumber("WAITLIST-1");
+        bus.setBusType(Bus.BusType.AC_SEATER);
+        bus.setOperatorName("Waitlist Lines");
+        bus.setTotalSeats(4);
+        bus = busRepository.save(bus);
+
+        Route route = new Route();
+        route.setSource("Waitlist A");
+        route.setDestination("Waitlist B");
+        route.setDistance(100.0);
+        route.setDuration(120);
+        route = routeRepository.save(route);
+
+        return tripService.createTrip(new Trip(bus, route, LocalDate.now().plusDays(1), LocalTime.of(10, 0),
+                LocalTime.of(12, 0), BigDecimal.TEN)).getId();
+    }
+
+    private Long createUser(String email, String phone) {
+        User user = new User();
+        user.setName("Waitlist User");
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setPhone(phone);
+        return userRepository.save(user).getId();
+    }
+}
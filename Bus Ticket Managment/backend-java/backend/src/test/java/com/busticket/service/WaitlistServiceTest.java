@@ -0,0 +1,163 @@
+package com.busticket.service;
+
+import com.busticket.concurrency.TripLockManager;
+import com.busticket.dto.BookingRequest;
+import com.busticket.dto.WaitlistRequest;
+import com.busticket.model.*;
+import com.busticket.repository.TripRepository;
+import com.busticket.repository.UserRepository;
+import com.busticket.repository.WaitlistRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WaitlistServiceTest {
+
+    @Mock private WaitlistRepository waitlistRepository;
+    @Mock private TripRepository tripRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private BookingService bookingService;
+    @Mock private SeatInventoryService seatInventoryService;
+    @Mock private NotificationService notificationService;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private TripLockManager tripLockManager;
+
+    @InjectMocks private WaitlistService waitlistService;
+
+    private final Trip trip = new Trip();
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(waitlistService, "maxSeatsPerBooking", 10);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        trip.setId(1L);
+        trip.setFare(BigDecimal.valueOf(25));
+        when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+    }
+
+    @AfterEach
+    void tearDown() {
+        waitlistService.shutdown();
+    }
+
+    private WaitlistEntry waiting(long entryId, long userId, int seatCount) {
+        User user = new User();
+        user.setId(userId);
+        WaitlistEntry entry = new WaitlistEntry(user, trip, seatCount, null);
+        entry.setId(entryId);
+        when(waitlistRepository.findById(entryId)).thenReturn(Optional.of(entry));
+        return entry;
+    }
+
+    private void restore(WaitlistEntry... entries) throws Exception {
+        when(waitlistRepository.findWaitingRefs()).thenReturn(java.util.Arrays.stream(entries)
+                .map(e -> new Object[]{e.getId(), 1L, e.getUser().getId(), e.getSeatCount(), null})
+                .toList());
+        when(seatInventoryService.getAvailableSeatCount(1L)).thenReturn(0L);
+        waitlistService.loadWaitingEntries();
+        // Let the promotions scheduled by the restore finish before the test stubs seat counts
+        ((java.util.concurrent.ExecutorService) ReflectionTestUtils.getField(waitlistService, "promoter"))
+                .submit(() -> { }).get();
+    }
+
+    @Test
+    void promote_holdsSeatsForHeadOfQueueInOrder() throws Exception {
+        WaitlistEntry first = waiting(11L, 2L, 2);
+        WaitlistEntry second = waiting(12L, 3L, 1);
+        restore(first, second);
+        when(seatInventoryService.getAvailableSeatCount(1L)).thenReturn(3L, 1L, 0L);
+        when(bookingService.holdSeats(any())).thenReturn(new Booking());
+        when(waitlistRepository.save(any(WaitlistEntry.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        waitlistService.promote(1L);
+
+        ArgumentCaptor<BookingRequest> requests = ArgumentCaptor.forClass(BookingRequest.class);
+        verify(bookingService, times(2)).holdSeats(requests.capture());
+        assertThat(requests.getAllValues()).extracting(BookingRequest::getUserId).containsExactly(2L, 3L);
+        assertThat(requests.getAllValues().get(0).getTotalAmount()).isEqualByComparingTo("50");
+        assertThat(first.getStatus()).isEqualTo(WaitlistEntry.WaitlistStatus.PROMOTED);
+        verify(notificationService, times(2)).waitlistPromoted(any(), any());
+        assertThat(waitlistService.getStats()).containsEntry("waitingEntries", 0);
+    }
+
+    @Test
+    void promote_stopsAtFirstEntryThatDoesNotFit() throws Exception {
+        WaitlistEntry first = waiting(11L, 2L, 3);
+        WaitlistEntry second = waiting(12L, 3L, 1);
+        restore(first, second);
+        when(seatInventoryService.getAvailableSeatCount(1L)).thenReturn(2L);
+
+        waitlistService.promote(1L);
+
+        verifyNoInteractions(bookingService);
+        assertThat(waitlistService.getStats()).containsEntry("waitingEntries", 2);
+    }
+
+    @Test
+    void onSeatsReleased_promotesHeadOnceReleaseCommits() throws Exception {
+        WaitlistEntry first = waiting(11L, 2L, 2);
+        WaitlistEntry second = waiting(12L, 3L, 2);
+        restore(first, second);
+        when(seatInventoryService.getAvailableSeatCount(1L)).thenReturn(2L, 0L);
+        when(bookingService.holdSeats(any())).thenReturn(new Booking());
+        when(waitlistRepository.save(any(WaitlistEntry.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            waitlistService.onSeatsReleased(new SeatsReleasedEvent(1L, List.of(4, 5)));
+            // Nothing runs in the releasing transaction itself
+            verifyNoInteractions(bookingService);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(transactionTemplate).execute(any());
+        verify(tripLockManager).lockForTransaction(1L);
+        assertThat(first.getStatus()).isEqualTo(WaitlistEntry.WaitlistStatus.PROMOTED);
+        assertThat(second.getStatus()).isEqualTo(WaitlistEntry.WaitlistStatus.WAITING);
+        assertThat(waitlistService.getStats()).containsEntry("waitingEntries", 1);
+    }
+
+    @Test
+    void onSeatsReleased_dropsEntryThatCannotBePromoted_withoutFailingRelease() throws Exception {
+        WaitlistEntry first = waiting(11L, 2L, 2);
+        restore(first);
+        when(seatInventoryService.getAvailableSeatCount(1L)).thenReturn(2L);
+        when(bookingService.holdSeats(any())).thenThrow(new RuntimeException("One or more selected seats are not available"));
+
+        waitlistService.onSeatsReleased(new SeatsReleasedEvent(1L, List.of(4, 5)));
+
+        verify(waitlistRepository).cancelWaiting(11L);
+        verifyNoInteractions(notificationService);
+        assertThat(waitlistService.getStats()).containsEntry("waitingEntries", 0);
+    }
+
+    @Test
+    void join_rejectsDuplicateEntry() {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(new User()));
+        when(waitlistRepository.existsByUserIdAndTripIdAndStatus(any(), any(), any())).thenReturn(true);
+
+        assertThrows(RuntimeException.class, () -> waitlistService.join(new WaitlistRequest(2L, 1L, 2)));
+        verify(waitlistRepository, never()).save(any());
+    }
+}
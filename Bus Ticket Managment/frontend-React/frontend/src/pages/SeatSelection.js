@@ -94,6 +94,27 @@ const SeatSelection = () => {
     fetchSeats();
   }, [tripId]); // eslint-disable-line react-hooks/exhaustive-deps
 
+  // Live updates: drop seats others take, bring back seats that are released
+  useEffect(() => {
+    if (typeof EventSource === 'undefined') return undefined;
+    const source = new EventSource(tripAPI.seatStreamUrl(tripId));
+    source.addEventListener('seats', (event) => {
+      const delta = JSON.parse(event.data);
+      const taken = [...(delta.held || []), ...(delta.booked || []), ...(delta.blocked || [])];
+      const released = delta.available || [];
+      setSeats(prev => {
+        const kept = prev.filter(seat => !taken.includes(seat.seatNumber));
+        const known = new Set(kept.map(seat => seat.seatNumber));
+        const added = released
+          .filter(seatNumber => !known.has(seatNumber))
+          .map(seatNumber => ({ id: `virtual-${seatNumber}`, seatNumber, isBooked: false, isHold: false }));
+        return [...kept, ...added].sort((a, b) => a.seatNumber - b.seatNumber);
+      });
+      setSelectedSeats(prev => prev.filter(seatNumber => !taken.includes(seatNumber)));
+    });
+    return () => source.close();
+  }, [tripId]);
+
 
 
   const handleSeatClick = (seat) => {
@@ -246,7 +267,7 @@ const SeatSelection = () => {
             }}>
               {seats.map((seat) => (
                 <Button
-                  key={seat.id}
+                  key={seat.id ?? seat.seatNumber}
                   variant={getSeatVariant(seat)}
                   className={`seat-button ${getSeatStatusClass(seat)}`}
                   onClick={() => handleSeatClick(seat)}
@@ -72,6 +72,7 @@ export const tripAPI = {
   search: (searchParams) => api.post('/trips/search', searchParams),
   getById: (id) => api.get(`/trips/${id}`),
   getSeats: (id) => api.get(`/trips/${id}/seats`),
+  seatStreamUrl: (id) => `${api.defaults.baseURL}/trips/${id}/seats/stream`,
   create: (tripData) => api.post('/trips', tripData),
   update: (id, tripData) => api.put(`/trips/${id}`, tripData),
   delete: (id) => api.delete(`/trips/${id}`),